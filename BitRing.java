@@ -0,0 +1,288 @@
+// BitRing.java - Packed bit ring for the template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class holds the template and the sample queue
+// of the template test as packed arrays of 64-bit words.
+// Bit i of the template is bit (i & 63) of word (i >>> 6).
+// The sample queue is a ring of bits.  Pushing a bit
+// writes one bit at the head of the ring, and popping
+// a bit advances the tail of the ring.  Neither operation
+// allocates memory.
+// The match method compares 64 positions of the sample
+// queue against the template in each step, or a vector
+// of them with VecKernel.  The first mismatch is found
+// with XOR and numberOfTrailingZeros.  See MatchKernel.
+// The results are the same as matching a doubly linked
+// list of nodes one node at a time.
+//**********************************************************
+
+import java.nio.ByteBuffer;
+
+public class BitRing
+   {
+
+   private int size;           // maximum #bits in template and queue
+   private int words;          // #64-bit words in each array
+   private int cap;            // #bits in the ring (words * 64)
+   private long tmpl[];        // template bits, oldest in bit 0
+   private int tmplCount;      // #bits in the template
+   private long ring[];        // sample queue bits
+   private int actTail;        // bit position of least recent sample
+   private int actCount;       // #bits in the sample queue
+	// kernel of the match, shared by every ring
+   private static MatchKernel kernel = new ScalarKernel();
+
+	BitRing(int size)
+	   {
+		this.size = size;
+		words = (size + 63) >>> 6;
+		cap   = words << 6;
+		tmpl  = new long[words];
+		ring  = new long[words];
+		tmplCount = 0;
+		actTail   = 0;
+		actCount  = 0;
+		} // constructor
+
+	// copy the template of another ring
+	// the new sample queue is empty
+
+	BitRing(BitRing orig)
+	   {
+		this(orig.size);
+		System.arraycopy(orig.tmpl, 0, tmpl, 0, words);
+		tmplCount = orig.tmplCount;
+		} // copy constructor
+
+   // add a new bit to the end of the template
+
+   public void pushTemplate(int key)
+	   {
+		int wrd;
+		int bit;
+		if (tmplCount >= size) return;
+		wrd = tmplCount >>> 6;
+		bit = tmplCount & 63;
+		tmpl[wrd] = (tmpl[wrd] & ~(1L << bit))
+		   | ((long) (key & 1) << bit);
+		tmplCount = tmplCount + 1;
+		} // pushTemplate
+
+   // remove the least recently added bit
+	// from the template
+	// The template is shifted down by one bit.
+	// This is not called in the sampling loop.
+
+   public void popTemplate()
+	   {
+		int i;
+		if (tmplCount == 0) return;
+		for (i=0;i<words-1;i++)
+		   {
+			tmpl[i] = (tmpl[i] >>> 1) | (tmpl[i+1] << 63);
+			} // for each word but the last
+		tmpl[words-1] = tmpl[words-1] >>> 1;
+		tmplCount = tmplCount - 1;
+		} // popTemplate
+
+   // add a new bit to the head of the sample queue
+
+   public void pushActual(int key)
+	   {
+		int pos;
+		int wrd;
+		int bit;
+		if (actCount >= cap) return;
+		pos = actTail + actCount;
+		if (pos >= cap) pos -= cap;
+		wrd = pos >>> 6;
+		bit = pos & 63;
+		ring[wrd] = (ring[wrd] & ~(1L << bit))
+		   | ((long) (key & 1) << bit);
+		actCount = actCount + 1;
+		} // pushActual
+
+   // remove the least recently added bit
+	// from the tail of the sample queue
+
+   public void popActual()
+	   {
+		if (actCount == 0) return;
+		actTail = actTail + 1;
+		if (actTail >= cap) actTail = 0;
+		actCount = actCount - 1;
+		} // popActual
+
+   // number of bytes written by save()
+
+   public int saveSize()
+	   {
+		return(4 * 4 + words * 16);
+		} // saveSize
+
+   // write the template and the sample queue to bb
+
+   public void save(ByteBuffer bb)
+	   {
+		bb.putInt(size);
+		bb.putInt(tmplCount);
+		bb.putInt(actTail);
+		bb.putInt(actCount);
+		bb.asLongBuffer().put(tmpl);
+		bb.position(bb.position() + words * 8);
+		bb.asLongBuffer().put(ring);
+		bb.position(bb.position() + words * 8);
+		} // save
+
+   // read the template and the sample queue from bb,
+	// as written by save() from a ring of the same size
+	// return zero if the ring is read
+	// return one  if the size is not the same
+
+   public int load(ByteBuffer bb)
+	   {
+		if (bb.getInt() != size) return(1);
+		tmplCount = bb.getInt();
+		actTail   = bb.getInt();
+		actCount  = bb.getInt();
+		bb.asLongBuffer().get(tmpl);
+		bb.position(bb.position() + words * 8);
+		bb.asLongBuffer().get(ring);
+		bb.position(bb.position() + words * 8);
+		return(0);
+		} // load
+
+   // number of bits in the template
+
+   public int tmplCount()
+	   {
+		return(tmplCount);
+		} // tmplCount
+
+   // number of bits in the sample queue
+
+   public int actCount()
+	   {
+		return(actCount);
+		} // actCount
+
+   // return bit i of the template
+	// bit zero is the least recently added
+
+   public int getTemplate(int i)
+	   {
+		return((int) (tmpl[i >>> 6] >>> (i & 63)) & 1);
+		} // getTemplate
+
+   // return bit i of the sample queue
+	// bit zero is the least recently added
+
+   public int getActual(int i)
+	   {
+		int pos;
+		pos = actTail + i;
+		if (pos >= cap) pos -= cap;
+		return((int) (ring[pos >>> 6] >>> (pos & 63)) & 1);
+		} // getActual
+
+   // return 64 bits of the sample queue starting at
+	// bit ofst of the queue, bit zero the least recent
+	// Bits past the end of the queue are not defined.
+
+   public long actualBits(int ofst)
+	   {
+		int pos;
+		pos = actTail + ofst;
+		if (pos >= cap) pos -= cap;
+		return(ScalarKernel.chunk(ring, pos));
+		} // actualBits
+
+   // count the number of matches, left to right, of
+	// the sample queue against the template
+	// return the actual number of matches in the
+	// least recent tail of the queue
+
+   public int match()
+	   {
+		return(matchAt(0));
+		} // match
+
+   // count the number of matches, left to right, of
+	// the sample queue starting at bit ofst against
+	// the template
+	// The kernel compares 64 bits or a vector at a time.
+	// Bits past the end of the queue are forced to
+	// mismatch, so the count never exceeds the length.
+
+   public int matchAt(int ofst)
+	   {
+		int len;      // #bits to compare
+		int pos;      // current position in the ring
+		len = actCount - ofst;
+		if (tmplCount < len) len = tmplCount;
+		pos = actTail + ofst;
+		if (pos >= cap) pos -= cap;
+		return(kernel.match(ring, pos, tmpl, len));
+	   } // matchAt
+
+   // the kernel of the match, for every ring
+
+   public static MatchKernel kernel()
+	   {
+		return(kernel);
+		} // kernel
+
+   // use the named kernel of the match, scalar or vector,
+	// for every ring
+	// VecKernel is loaded by name, so this class runs
+	// without the Vector API.
+	// return zero if the kernel is in use
+	// return one  if the name is not known
+	// return two  if the vector kernel cannot run here
+
+   public static int useKernel(String name)
+	   {
+		Class<?> vec;
+		if (name.equals("scalar"))
+		   {
+			kernel = new ScalarKernel();
+			return(0);
+			} // if scalar
+		if (!name.equals("vector")) return(1);
+		try
+		   {
+			vec = Class.forName("VecKernel");
+			if (!(Boolean) vec.getMethod("usable").invoke(null))
+			   {
+				return(2);
+				} // if vectors too short
+			kernel = (MatchKernel) vec.getDeclaredConstructor()
+			   .newInstance();
+			return(0);
+			} // try
+		catch (ReflectiveOperationException | LinkageError e)
+		   {
+			// no jdk.incubator.vector module
+			return(2);
+			} // catch
+		} // useKernel
+
+   } // class BitRing
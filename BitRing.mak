@@ -0,0 +1,7 @@
+CC=javac
+
+BitRing.class:					BitRing.java
+			$(CC) BitRing.java
+
+clean:
+			rm -f BitRing.class
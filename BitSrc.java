@@ -0,0 +1,95 @@
+// BitSrc.java - Source of bits for the template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+
+//**********************************************************
+// This interface is a source of bits for the template
+// test engine, TmplEngine.
+// Each program of the template test is the engine with
+// its own source of bits.  Template uses EtausSrc or
+// HarvSrc, SinTempl uses SinSrc, and WrapTmpl uses WrapSrc.
+// A new source only has to implement nextBit(), and it
+// runs in the same sampling loop as the others.
+// A source that can be split among workers, for -p, also
+// implements SplitSrc, and a source that can be saved in
+// a checkpoint, for -c and -r, also implements SaveSrc.
+// A source that holds an open file closes it in close(),
+// so that it can be used in a try with resources.
+// Only one kind of source is used in the sampling loop
+// of a run, so the call of nextBit() there sees only one
+// class, and the JIT compiler inlines it.
+//**********************************************************
+
+public interface BitSrc extends AutoCloseable
+   {
+
+   // return the next bit, zero or one
+	// A source with an end, such as StreamSrc, returns -1
+	// at the end.
+
+   public int nextBit();
+
+   // fill bits[] with the next nbits bits, 64 bits to a
+	// word, the first bit in bit 0 of bits[0]
+	// The bits are the same as nbits calls of nextBit().
+	// Used by TmplScan, which matches 64 bits at a time.
+	// A source with a bulk generator overrides this.
+	// return the number of bits filled, less than nbits
+	// only at the end of the input
+
+   public default int nextBits(long bits[], int nbits)
+	   {
+		int i;
+		int bit;
+		long wrd;
+		wrd = 0L;
+		for (i=0;i<nbits;i++)
+		   {
+			bit = nextBit();
+			if (bit < 0) break;
+			wrd |= (long) bit << (i & 63);
+			if ((i & 63) == 63)
+			   {
+				bits[i >>> 6] = wrd;
+				wrd = 0L;
+				} // if word is full
+			} // for each bit
+		if ((i & 63) != 0)
+		   {
+			bits[i >>> 6] = wrd;
+			} // if last partial word
+		return(i);
+		} // nextBits
+
+   // return the number of etaus outputs used for nbits
+	// bits, or more, for placing substreams
+
+   public default long outputs(long nbits)
+	   {
+		return(nbits);
+		} // outputs
+
+   // release the input of the source, if any
+
+   public default void close()
+	   {
+		} // close
+
+   } // interface BitSrc
@@ -0,0 +1,7 @@
+CC=javac
+
+BitSrc.class:					BitSrc.java
+			$(CC) BitSrc.java
+
+clean:
+			rm -f BitSrc.class
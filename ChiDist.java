@@ -0,0 +1,193 @@
+// ChiDist.java - Chi square distribution functions  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class has the distribution functions of the chi
+// square statistic: the p-value of a chi square test,
+// the central and the noncentral cumulative distribution.
+// The report of a template test and its interim reports,
+// ChiRpt, use the p-value, and the sequential test,
+// SeqTest, uses both distributions.  They are found from
+// the incomplete gamma function, by its series or its
+// continued fraction, with enough terms for the million
+// degrees of freedom of a bank of templates.
+//**********************************************************
+
+public class ChiDist
+   {
+
+	// most terms of the incomplete gamma function
+   private static final int maxTerms = 100000;
+
+   //***********************************************************
+	// p-value of the chi square test
+	// p = Q(df/2, chisq/2), the upper regularized incomplete
+	// gamma function, found by its series when x is less
+	// than a+1, and by its continued fraction otherwise.
+	//***********************************************************
+
+   public static double pvalue(double chisq, int df)
+	   {
+		double a;
+		double x;
+		if (df < 1) return(1.0);
+		if (chisq <= 0.0) return(1.0);
+		a = df * 0.5;
+		x = chisq * 0.5;
+		if (x < a + 1.0)
+		   {
+			return(1.0 - gser(a, x));
+			} // if series
+		return(gcf(a, x));
+		} // pvalue
+
+   // return P(X <= x) for X chi square with df degrees
+	// of freedom, P(df/2, x/2), the lower regularized
+	// incomplete gamma function
+
+   public static double cdf(double x, int df)
+	   {
+		double a;
+		double hx;
+		if (x <= 0.0) return(0.0);
+		if (df < 1) return(1.0);
+		a  = df * 0.5;
+		hx = x * 0.5;
+		if (hx < a + 1.0)
+		   {
+			return(gser(a, hx));
+			} // if series
+		return(1.0 - gcf(a, hx));
+		} // cdf
+
+   // return P(X <= x) for X noncentral chi square with
+	// df degrees of freedom and noncentrality lambda
+	// The noncentral chi square is a Poisson mixture of
+	// central chi squares with df+2j degrees of freedom,
+	// with mean lambda/2 for j.  The sum is taken over
+	// the Poisson terms within ten standard deviations
+	// of the mean.
+
+   public static double ncdf(double x, int df, double lambda)
+	   {
+		long j;
+		long lo;
+		long hi;
+		double mu;
+		double sd;
+		double wt;
+		double sum;
+		if (lambda <= 0.0) return(cdf(x, df));
+		mu = lambda * 0.5;
+		sd = Math.sqrt(mu);
+		lo = Math.max(0L, (long) (mu - 10.0 * sd - 10.0));
+		hi = (long) (mu + 10.0 * sd + 10.0);
+		sum = 0.0;
+		for (j=lo;j<=hi;j++)
+		   {
+			wt = Math.exp(-mu + j * Math.log(mu) - lgamma(j + 1.0));
+			sum = sum + wt * cdf(x, (int) (df + 2 * j));
+			} // for each Poisson term
+		return(sum);
+		} // ncdf
+
+   // lower regularized gamma P(a,x) by its series
+	// The series and the fraction take a few times
+	// sqrt(a) terms, so a bank of templates, with a
+	// million degrees of freedom, needs many terms.
+
+   private static double gser(double a, double x)
+	   {
+		int n;
+		double ap;
+		double del;
+		double sum;
+		ap  = a;
+		del = 1.0 / a;
+		sum = del;
+		for (n=0;n<maxTerms;n++)
+		   {
+			ap  = ap + 1.0;
+			del = del * x / ap;
+			sum = sum + del;
+			if (Math.abs(del) < Math.abs(sum) * 1.0e-15) break;
+			} // for each term
+		return(sum * Math.exp(-x + a * Math.log(x) - lgamma(a)));
+		} // gser
+
+   // upper regularized gamma Q(a,x) by its continued
+	// fraction, with the modified Lentz method
+
+   private static double gcf(double a, double x)
+	   {
+		int i;
+		double an;
+		double b;
+		double c;
+		double d;
+		double h;
+		double del;
+		double tiny = 1.0e-300;
+		b = x + 1.0 - a;
+		c = 1.0 / tiny;
+		d = 1.0 / b;
+		h = d;
+		for (i=1;i<maxTerms;i++)
+		   {
+			an = -i * (i - a);
+			b  = b + 2.0;
+			d  = an * d + b;
+			if (Math.abs(d) < tiny) d = tiny;
+			c  = b + an / c;
+			if (Math.abs(c) < tiny) c = tiny;
+			d  = 1.0 / d;
+			del = d * c;
+			h  = h * del;
+			if (Math.abs(del - 1.0) < 1.0e-15) break;
+			} // for each term
+		return(Math.exp(-x + a * Math.log(x) - lgamma(a)) * h);
+		} // gcf
+
+   // log of the gamma function, by the Lanczos
+	// approximation
+
+   private static double lgamma(double x)
+	   {
+		int j;
+		double ser;
+		double tmp;
+		double y;
+		double cof[] = {
+		   76.18009172947146,     -86.50532032941677,
+			24.01409824083091,     -1.231739572450155,
+			0.1208650973866179e-2, -0.5395239384953e-5};
+		y   = x;
+		tmp = x + 5.5;
+		tmp = tmp - (x + 0.5) * Math.log(tmp);
+		ser = 1.000000000190015;
+		for (j=0;j<6;j++)
+		   {
+			y   = y + 1.0;
+			ser = ser + cof[j] / y;
+			} // for each coefficient
+		return(-tmp + Math.log(2.5066282746310005 * ser / x));
+		} // lgamma
+
+   } // class ChiDist
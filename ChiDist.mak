@@ -0,0 +1,7 @@
+CC=javac
+
+ChiDist.class:					ChiDist.java
+			$(CC) ChiDist.java
+
+clean:
+			rm -f ChiDist.class
@@ -0,0 +1,140 @@
+// ChiRpt.java - Interim chi square reports of the template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class writes the interim chi square reports of a
+// long template test to a time series file, so that a
+// run can be watched while it runs, and a bad generator
+// can be stopped early.
+// A report is written every so many samples, or every
+// so many seconds.  Reading the clock for each sample
+// would cost more than the sample, so the engine asks
+// for the time only every TmplEngine.clockSteps samples.
+// Each line of the file is one report:
+//    samples  seconds  chi square  degrees of freedom  p
+// samples is the number of samples taken, and seconds is
+// the time since the start of the run.  p is the chance
+// of a chi square at least as large from a good
+// generator.  A small p, such as 0.001 or less, is a
+// failing test.  It is found by ChiDist.
+//**********************************************************
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+public class ChiRpt
+   {
+
+
+   private String name;          // name of the file
+   private BufferedWriter out;   // time series file
+   private long every;           // #samples between reports, or 0
+   private long nanos;           // nanoseconds between reports
+   private long start;           // clock at the start of the run
+   private long due;             // clock of the next report
+   private long last;            // samples of the last line, or -1
+
+	// Write a report every so many samples, or if every
+	// is zero, every so many seconds.
+
+	ChiRpt(String name, long every, double seconds)
+	   throws IOException
+	   {
+		this.name  = name;
+		this.every = every;
+		nanos = (long) (seconds * 1.0e9);
+		out = new BufferedWriter(new FileWriter(name));
+		out.write("# samples  seconds  chisq  df  p");
+		out.newLine();
+		out.flush();
+		start = System.nanoTime();
+		due   = start + nanos;
+		last  = -1;
+		} // constructor
+
+   // return the number of samples between reports,
+	// or zero if the reports are by time
+
+   public long every()
+	   {
+		return(every);
+		} // every
+
+   // return true if a report by time is due
+	// The time of the next report is set.
+
+   public boolean timeDue()
+	   {
+		long now;
+		if (every > 0) return(false);
+		now = System.nanoTime();
+		if (now < due) return(false);
+		due = now + nanos;
+		return(true);
+		} // timeDue
+
+   // return the number of samples of the last line
+	// written, or -1 if none
+
+   public long last()
+	   {
+		return(last);
+		} // last
+
+   // Write one report.
+	// The line is flushed, so that the file can be
+	// watched while the run goes on.
+
+   public void line(long samples, double chisq, int df)
+	   {
+		double secs;
+		secs = (System.nanoTime() - start) / 1.0e9;
+		try
+		   {
+			out.write(String.format("%d %.3f %.4f %d %.6g",
+			   samples, secs, chisq, df, ChiDist.pvalue(chisq, df)));
+			out.newLine();
+			out.flush();
+			last = samples;
+			} // try
+		catch (IOException e)
+		   {
+			System.out.print("ChiRpt: cannot write ");
+			System.out.println(name);
+			} // catch
+		} // line
+
+   // close the time series file
+
+   public void close()
+	   {
+		try
+		   {
+			out.close();
+			} // try
+		catch (IOException e)
+		   {
+			System.out.print("ChiRpt: cannot write ");
+			System.out.println(name);
+			} // catch
+		} // close
+
+   } // class ChiRpt
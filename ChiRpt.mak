@@ -0,0 +1,7 @@
+CC=javac
+
+ChiRpt.class:					ChiRpt.java
+			$(CC) ChiRpt.java
+
+clean:
+			rm -f ChiRpt.class
@@ -0,0 +1,222 @@
+// Ckpt.java - Checkpoint file of the template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class writes and reads the checkpoint file of a
+// long template test, so that a run that stops can be
+// continued from its last checkpoint, with the same
+// results as a run that never stopped.
+// The file is binary, with the fields in this order:
+//    magic number, version, tag of the program
+//    state of the engine, TmplEngine.save()
+//       size, samples, probability, samples taken,
+//       tallies, template and sample queue, automaton
+//    state of the source of samples, SaveSrc.save()
+//       for etaus, the registers, the output states,
+//       the harvest word and the 16384 state array
+//    CRC-32 of all of the above
+// A checkpoint is taken in two steps.  The sampling loop
+// copies the state into a buffer in memory, which takes
+// microseconds.  A background thread then writes the
+// buffer to a temporary file and renames it over the
+// checkpoint file, so the file always holds one whole
+// checkpoint, and the sampling loop does not wait for
+// the disk.
+//**********************************************************
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+public class Ckpt implements Runnable
+   {
+
+   private static final int magic   = 0x544d504c;   // "TMPL"
+   private static final int version = 1;
+
+   private Path path;              // checkpoint file
+   private Path tmp;               // file being written
+   private int tag;                // tag of the program
+   private ExecutorService writer; // background writer thread
+   private Future<?> pending;      // write in progress
+   private ByteBuffer snap;        // checkpoint being written
+
+	// A checkpoint file for the program with the given tag.
+	// The file is tried for writing first, so that a run
+	// whose checkpoint cannot be written stops before it
+	// takes any samples, not at the first checkpoint.
+
+	Ckpt(String path, int tag) throws IOException
+	   {
+		this.path = Paths.get(path);
+		this.tmp  = Paths.get(path + ".tmp");
+		this.tag  = tag;
+		FileChannel.open(tmp, StandardOpenOption.CREATE,
+		   StandardOpenOption.WRITE).close();
+		Files.delete(tmp);
+		writer  = Executors.newSingleThreadExecutor();
+		pending = null;
+		snap    = null;
+		} // constructor
+
+   // Copy the state of the engine and its source into a
+	// new buffer, and write the buffer in the background.
+	// If the write before has not finished, wait for it
+	// first.
+
+   public void write(TmplEngine eng, SaveSrc src)
+	   {
+		int len;
+		ByteBuffer bb;
+		CRC32 crc;
+		len = 3 * 4 + eng.saveSize() + src.saveSize() + 8;
+		bb = ByteBuffer.allocate(len);
+		bb.putInt(magic);
+		bb.putInt(version);
+		bb.putInt(tag);
+		eng.save(bb);
+		src.save(bb);
+		crc = new CRC32();
+		crc.update(bb.array(), 0, bb.position());
+		bb.putLong(crc.getValue());
+		bb.flip();
+		finish();
+		snap = bb;
+		pending = writer.submit(this);
+		} // write
+
+   // write the buffer to the checkpoint file
+	// This runs on the writer thread.
+
+   public void run()
+	   {
+		FileChannel fc;
+		try
+		   {
+			fc = FileChannel.open(tmp, StandardOpenOption.CREATE,
+			   StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+			while (snap.hasRemaining())
+			   {
+				fc.write(snap);
+				} // while bytes to write
+			fc.force(true);
+			fc.close();
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+			   StandardCopyOption.ATOMIC_MOVE);
+			} // try
+		catch (IOException e)
+		   {
+			System.out.print("Ckpt: cannot write ");
+			System.out.println(path);
+			} // catch
+		} // run
+
+   // wait for the write in progress, if any
+
+   private void finish()
+	   {
+		if (pending == null) return;
+		try
+		   {
+			pending.get();
+			} // try
+		catch (InterruptedException e)
+		   {
+			Thread.currentThread().interrupt();
+			} // catch
+		catch (ExecutionException e)
+		   {
+			System.out.print("Ckpt: cannot write ");
+			System.out.println(path);
+			} // catch
+		pending = null;
+		} // finish
+
+   // wait for the last write, and stop the writer thread
+
+   public void close()
+	   {
+		finish();
+		writer.shutdown();
+		} // close
+
+   // Read a checkpoint file into memory, and check it.
+	// return the buffer, positioned at the tag of the
+	// program, followed by the state of the engine
+	// return null if the file cannot be read, or is not
+	// a whole checkpoint
+
+   public static ByteBuffer read(String name)
+	   {
+		long len;
+		ByteBuffer bb;
+		FileChannel fc;
+		CRC32 crc;
+		try
+		   {
+			fc  = FileChannel.open(Paths.get(name),
+			   StandardOpenOption.READ);
+			len = fc.size();
+			if (len < 4 * 4 + 8 || len > Integer.MAX_VALUE)
+			   {
+				fc.close();
+				System.out.print("Ckpt: not a checkpoint ");
+				System.out.println(name);
+				return(null);
+				} // if wrong length
+			bb = ByteBuffer.allocate((int) len);
+			while (bb.hasRemaining())
+			   {
+				if (fc.read(bb) < 0) break;
+				} // while bytes to read
+			fc.close();
+			} // try
+		catch (IOException e)
+		   {
+			System.out.print("Ckpt: cannot read ");
+			System.out.println(name);
+			return(null);
+			} // catch
+		crc = new CRC32();
+		crc.update(bb.array(), 0, bb.capacity() - 8);
+		if (bb.getInt(0) != magic || bb.getInt(4) != version
+		   || bb.getLong(bb.capacity() - 8) != crc.getValue())
+		   {
+			System.out.print("Ckpt: not a checkpoint ");
+			System.out.println(name);
+			return(null);
+			} // if bad header or checksum
+		bb.position(8);
+		bb.limit(bb.capacity() - 8);
+		return(bb);
+		} // read
+
+   } // class Ckpt
@@ -0,0 +1,7 @@
+CC=javac
+
+Ckpt.class:					Ckpt.java
+			$(CC) Ckpt.java
+
+clean:
+			rm -f Ckpt.class
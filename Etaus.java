@@ -30,30 +30,50 @@
 // For example the power in genpwr() should be =< 31.
 // Since these methods are called billions of times,
 // input parameters are not validated. 
+// Each instance of this class has its own Tausworthe
+// registers and its own Bays-Durham state array.
+// Two instances are two independent streams, and may be
+// used at the same time in different threads.
+// A single instance is not thread safe.
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class Etaus
    {
 
 	// number of states in state array
 	// the state array is used in the Bays-Durham shuffle
-   private static int states = 16384;
-   private static int ofst;         // offset into state array
-	private static int ofstmsk = 0x00003fff;
-	private static int intmsk  = 0xffffffff;
-	private static int msk0    = 0xffffffff;
-	private static int msk1    = 0xfffffffe;
-	private static int msk2    = 0xfffffff8;
-	private static int msk3    = 0xfffffff0;
-	private static int halfmax = 0x7fffffff;
-	private static int s1;          // taus s1
-	private static int s2;          // taus s2
-	private static int s3;          // taus s3
-	private static int out;         // current output state
-   private static int prev;        // prev output state
-   private static int pprev;       // prev prev output state
-   // state array of 1024 members
-   private static int state[] = new int[states];
-   private static double maxint;   // 2^31
+   static final int states = 16384;
+	// number of registers and output states, for getRegs()
+   static final int regs = 6;
+	private static final int ofstmsk = 0x00003fff;
+	private static final int intmsk  = 0xffffffff;
+	private static final int msk0    = 0xffffffff;
+	private static final int msk1    = 0xfffffffe;
+	private static final int msk2    = 0xfffffff8;
+	private static final int msk3    = 0xfffffff0;
+	private static final int halfmax = 0x7fffffff;
+	private static final double twom53 = 1.0 / 9007199254740992.0;  // 2^-53
+	// the following state belongs to each instance,
+	// so that each instance is an independent stream
+   private int ofst;         // offset into state array
+	private int s1;          // taus s1
+	private int s2;          // taus s2
+	private int s3;          // taus s3
+	private int out;         // current output state
+   private int prev;        // prev output state
+   private int pprev;       // prev prev output state
+   // state array of 16384 members
+   private int state[] = new int[states];
+   private double maxint;   // 2^31
+	private int hword;       // output being harvested
+	private int hcnt;        // #bits left in hword
+	// scratch block for the bulk methods
+	private static final int blksz = 1024;
+	private int blk[];
+	// hash of the state array, kept by genHashed()
+	private long thash;
 
 	Etaus()
 	   {
@@ -67,7 +87,7 @@ public class Etaus
 
    // There are three parts to the Tausworthe algorithm
 
-   private static void one()
+   private void one()
 	   {
 		int lft;
 		int rgt;
@@ -76,7 +96,7 @@ public class Etaus
 		s1  = lft ^ rgt;
 		} // one
 
-   private static void two()
+   private void two()
 	   {
 		int lft;
 		int rgt;
@@ -85,7 +105,7 @@ public class Etaus
 		s2  = (lft ^ rgt);
 		} // two
 
-   private static void tre()
+   private void tre()
 	   {
 		int lft;
 		int rgt;
@@ -97,7 +117,7 @@ public class Etaus
    // smplgen is used by init and strt to
 	// populate the state array
 
-   private static int smplgen()
+   private int smplgen()
 	   {
 		one();
 		two();
@@ -106,7 +126,7 @@ public class Etaus
 		return(out);
 		} // smplgen
 
-   public static int gen()
+   public int gen()
 	   {
 		int tmp;
 		ofst = pprev >>> 18;
@@ -145,7 +165,7 @@ public class Etaus
 
 // Generate a uniform random number from zero to one
 
-	public static double genunif()
+	public double genunif()
 	   {
 		int i;
 		double frac;
@@ -160,7 +180,7 @@ public class Etaus
 	// This routine is slower than genunif,
 	// but more accurate
 
-	public static double genfrac()
+	public double genfrac()
 	   {
 		int i;
 		double frac;
@@ -182,10 +202,27 @@ public class Etaus
 		return(frac);
 		} // genfrac
 
+   // gendbl returns a 53 bit fraction from zero to one,
+	// not including one, from two outputs of gen()
+	// The high 27 bits of the first output and the high
+	// 26 bits of the second output form the mantissa.
+	// This is as accurate as genfrac, but it uses two
+	// outputs instead of 53.  genfrac is kept, so that
+	// earlier results can be reproduced.
+
+	public double gendbl()
+	   {
+		long hi;
+		long lo;
+		hi = gen() >>> 5;     // 27 bits
+		lo = gen() >>> 6;     // 26 bits
+		return(((hi << 26) | lo) * twom53);
+		} // gendbl
+
    // generate a uniform random integer from zero
 	// to limit minus one
 
-	public static int genint(int lmt)
+	public int genint(int lmt)
 	   {
 		int i;
 		double dbllmt;
@@ -201,7 +238,7 @@ public class Etaus
 	// example: genpwr(4) generates a 4-bit
 	// uniform random number from zero to fifteen
 
-	public static int genpwr(int pwr)
+	public int genpwr(int pwr)
 	   {
 		int i;
 		int shft;
@@ -214,23 +251,218 @@ public class Etaus
    // generate a 32-bit integer with a uniform
 	// value of either zero or one
 
-	public static int genbit()
+	// The bit is one when genunif() >= 0.5, that is when
+	// the absolute value of gen() is at least 2^30.
+	// The test is done with integers only:
+	// Math.abs() of the output, shifted right 30 bits,
+	// is 0, 1 or 2, and 2 only for 0x80000000, whose
+	// genunif() is 1.0.  Adding one and shifting right
+	// one bit maps 0 to 0, and 1 or 2 to 1.
+
+	public int genbit()
 	   {
-		double frac;
-		frac = genunif();
-		if (frac >= 0.5)
+		return(((Math.abs(gen()) >>> 30) + 1) >>> 1);
+		} // genbit
+
+   // Harvest mode
+	// generate one bit, using all 32 bits of each output
+	// of gen() as 32 consecutive bits, most significant
+	// bit first
+	// This is 32 times less work per bit than genbit().
+
+	public int genharv()
+	   {
+		if (hcnt == 0)
 		   {
-			return(1);
-			} // if a one bit
-		else
+			hword = gen();
+			hcnt  = 32;
+			} // if no bits left in word
+		hcnt = hcnt - 1;
+		return((hword >>> hcnt) & 1);
+		} // genharv
+
+   //***********************************************************
+	// Bulk methods
+	// Each bulk method produces the same sequence as
+	// calling gen() or genbit() once for each value.
+	// The inner loop keeps the Tausworthe registers and
+	// the shuffle state in local variables, and stores
+	// them back once at the end.
+	//***********************************************************
+
+   // fill buf[ofst] to buf[ofst+len-1] with the next
+	// len outputs of gen()
+
+	public void genInts(int buf[], int ofst, int len)
+	   {
+		int i;
+		int end;
+		int tmp;
+		int off;
+		int a1 = s1;
+		int a2 = s2;
+		int a3 = s3;
+		int o  = out;
+		int p  = prev;
+		int pp = pprev;
+		int st[] = state;
+		off = this.ofst;
+		end = ofst + len;
+		for (i=ofst;i<end;i++)
 		   {
-			return(0);
-			} // else a zero bit
-		} // genbit
+			off = pp >>> 18;
+			pp  = p;
+			p   = o;
+			a1  = ((a1 & msk1) << 12) ^ (((a1 << 13) ^ a1) >>> 19);
+			a2  = ((a2 & msk2) << 4)  ^ (((a2 << 2)  ^ a2) >>> 25);
+			a3  = ((a3 & msk3) << 17) ^ (((a3 << 3)  ^ a3) >>> 11);
+			tmp = a1 ^ a2 ^ a3;
+			// Bays-Durham shuffle
+			o = st[off];
+			st[off] = tmp;
+			buf[i] = o;
+			} // for each output
+		s1    = a1;
+		s2    = a2;
+		s3    = a3;
+		out   = o;
+		prev  = p;
+		pprev = pp;
+		this.ofst = off;
+		} // genInts
+
+   // return the scratch block, allocated on first use
+
+	private int[] block()
+	   {
+		if (blk == null)
+		   {
+			blk = new int[blksz];
+			} // if first use
+		return(blk);
+		} // block
+
+   // fill buf[ofst] to buf[ofst+len-1] with 64-bit values
+	// each value is two outputs of gen(), the first
+	// output in the high 32 bits
+
+	public void genLongs(long buf[], int ofst, int len)
+	   {
+		int i;
+		int j;
+		int n;
+		int b[];
+		b = block();
+		i = ofst;
+		while (len > 0)
+		   {
+			n = len;
+			if (n > blksz / 2) n = blksz / 2;
+			genInts(b, 0, 2 * n);
+			for (j=0;j<n;j++)
+			   {
+				buf[i] = ((long) b[2*j] << 32) | (b[2*j+1] & 0xffffffffL);
+				i = i + 1;
+				} // for each value
+			len = len - n;
+			} // while more values to fill
+		} // genLongs
+
+   // fill the remaining bytes of a byte buffer with outputs
+	// of gen(), four bytes for each output, in the byte order
+	// of the buffer
+	// A remainder of less than four bytes is not filled.
+
+	public void genBytes(ByteBuffer bb)
+	   {
+		int j;
+		int n;
+		int b[];
+		b = block();
+		while (bb.remaining() >= 4)
+		   {
+			n = bb.remaining() >>> 2;
+			if (n > blksz) n = blksz;
+			genInts(b, 0, n);
+			for (j=0;j<n;j++)
+			   {
+				bb.putInt(b[j]);
+				} // for each output
+			} // while room for an output
+		} // genBytes
+
+   // fill a packed array with the next nbits outputs of
+	// genbit()
+	// bit i is bit (i & 63) of bits[i >>> 6], the same
+	// layout as the template in BitRing.
+	// Bits past nbits in the last word are zero.
+
+	public void genBits(long bits[], int nbits)
+	   {
+		int i;
+		int j;
+		int n;
+		int b[];
+		long wrd;
+		b = block();
+		wrd = 0L;
+		i = 0;
+		while (i < nbits)
+		   {
+			n = nbits - i;
+			if (n > blksz) n = blksz;
+			genInts(b, 0, n);
+			for (j=0;j<n;j++)
+			   {
+				// the same test as genbit()
+				wrd |= (long) (((Math.abs(b[j]) >>> 30) + 1) >>> 1)
+				   << (i & 63);
+				i = i + 1;
+				if ((i & 63) == 0)
+				   {
+					bits[(i - 1) >>> 6] = wrd;
+					wrd = 0L;
+					} // if word is full
+				} // for each output
+			} // while more bits to fill
+		if ((nbits & 63) != 0)
+		   {
+			bits[nbits >>> 6] = wrd;
+			} // if last partial word
+		} // genBits
+
+   // fill buf[ofst] to buf[ofst+len-1] with the next
+	// len outputs of gendbl()
+
+	public void genDbls(double buf[], int ofst, int len)
+	   {
+		int i;
+		int j;
+		int n;
+		int b[];
+		long hi;
+		long lo;
+		b = block();
+		i = ofst;
+		while (len > 0)
+		   {
+			n = len;
+			if (n > blksz / 2) n = blksz / 2;
+			genInts(b, 0, 2 * n);
+			for (j=0;j<n;j++)
+			   {
+				hi = b[2*j] >>> 5;
+				lo = b[2*j+1] >>> 6;
+				buf[i] = ((hi << 26) | lo) * twom53;
+				i = i + 1;
+				} // for each value
+			len = len - n;
+			} // while more values to fill
+		} // genDbls
 
    // display the etaus state minus the state array
 
-	public static void dspl()
+	public void dspl()
 	   {
 		System.out.print("32 bit msk ");
 		System.out.println(Integer.toHexString(msk0));
@@ -258,7 +490,7 @@ public class Etaus
 
 	// display the state array
 
-	public static void dsplState()
+	public void dsplState()
 	   {
 		int i;
 		for (i=0;i<states;i++)
@@ -268,15 +500,240 @@ public class Etaus
 			} // for each state in state array
 		} // dsplState
 
+   //***********************************************************
+	// Lanes
+	// EtausLanes runs many streams at once, and copies a
+	// stream in and out of an Etaus with the registers,
+	// the output states and the state array.
+	//***********************************************************
+
+   // copy s1, s2, s3, out, prev and pprev into r[]
+
+	void getRegs(int r[])
+	   {
+		r[0] = s1;
+		r[1] = s2;
+		r[2] = s3;
+		r[3] = out;
+		r[4] = prev;
+		r[5] = pprev;
+		} // getRegs
+
+   // set s1, s2, s3, out, prev and pprev from r[], as
+	// written by getRegs()
+	// The offset is found from pprev, as gen() does, and
+	// the harvest word is empty.
+
+	void setRegs(int r[])
+	   {
+		s1    = r[0];
+		s2    = r[1];
+		s3    = r[2];
+		out   = r[3];
+		prev  = r[4];
+		pprev = r[5];
+		ofst  = pprev >>> 18;
+		hword = 0;
+		hcnt  = 0;
+		} // setRegs
+
+   // return the state array itself, of states members
+
+	int[] stateArray()
+	   {
+		return(state);
+		} // stateArray
+
+   //***********************************************************
+	// Checkpoint
+	// The whole state of the generator, the registers, the
+	// output states, the harvest word and the state array,
+	// is saved in binary, so that a run can be continued
+	// later from the same point in the stream.
+	//***********************************************************
+
+   // number of bytes written by save()
+
+	public static final int saveSize = 9 * 4 + states * 4;
+
+   // write the state of the generator to bb
+
+	public void save(ByteBuffer bb)
+	   {
+		bb.putInt(s1);
+		bb.putInt(s2);
+		bb.putInt(s3);
+		bb.putInt(out);
+		bb.putInt(prev);
+		bb.putInt(pprev);
+		bb.putInt(ofst);
+		bb.putInt(hword);
+		bb.putInt(hcnt);
+		// the state array in one bulk copy
+		bb.asIntBuffer().put(state);
+		bb.position(bb.position() + states * 4);
+		} // save
+
+   // read the state of the generator from bb,
+	// as written by save()
+
+	public void load(ByteBuffer bb)
+	   {
+		s1    = bb.getInt();
+		s2    = bb.getInt();
+		s3    = bb.getInt();
+		out   = bb.getInt();
+		prev  = bb.getInt();
+		pprev = bb.getInt();
+		ofst  = bb.getInt();
+		hword = bb.getInt();
+		hcnt  = bb.getInt();
+		bb.asIntBuffer().get(state);
+		bb.position(bb.position() + states * 4);
+		} // load
+
+   //***********************************************************
+	// Cycle detection
+	// The state of the generator is the three Tausworthe
+	// registers, the output states out, prev and pprev, and
+	// the state array.  ofst is found from pprev by the
+	// next gen().  The harvest word is not part of gen().
+	// The hash of the state array is the sum of a mix of
+	// each index and member, so when gen() swaps one
+	// member, the hash is changed by that member alone.
+	// Two states are compared by their hashes in constant
+	// time, and only equal hashes are compared in full.
+	// See EtausCycle.
+	//***********************************************************
+
+   // mix index i and member v of the state array into
+	// 64 bits, with the finalizer of splitmix64
+
+	private static long mix(int i, int v)
+	   {
+		long z;
+		z = (((long) i << 32) | (v & 0xffffffffL)) + 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return(z ^ (z >>> 31));
+		} // mix
+
+   // hash the whole state array, once, before genHashed()
+
+	public void hashTable()
+	   {
+		int i;
+		thash = 0L;
+		for (i=0;i<states;i++)
+		   {
+			thash += mix(i, state[i]);
+			} // for each member
+		} // hashTable
+
+   // gen(), and update the hash of the state array
+	// for the one member swapped
+
+	public int genHashed()
+	   {
+		int o;
+		o = gen();
+		thash += mix(ofst, state[ofst]) - mix(ofst, o);
+		return(o);
+		} // genHashed
+
+   // return a hash of the whole state, in constant time
+
+	public long stateHash()
+	   {
+		long h;
+		h = thash;
+		h = h * 31 + mix(-1, s1);
+		h = h * 31 + mix(-2, s2);
+		h = h * 31 + mix(-3, s3);
+		h = h * 31 + mix(-4, out);
+		h = h * 31 + mix(-5, prev);
+		h = h * 31 + mix(-6, pprev);
+		return(h);
+		} // stateHash
+
+   // return true if the state of o is the same as this state
+	// The state arrays are compared only if the hashes are
+	// equal.
+
+	public boolean sameState(Etaus o)
+	   {
+		if (stateHash() != o.stateHash()) return(false);
+		return(s1 == o.s1 && s2 == o.s2 && s3 == o.s3
+		   && out == o.out && prev == o.prev && pprev == o.pprev
+			&& Arrays.equals(state, o.state));
+		} // sameState
+
+   // copy the whole state of o, with its hash
+
+	public void copyState(Etaus o)
+	   {
+		s1    = o.s1;
+		s2    = o.s2;
+		s3    = o.s3;
+		out   = o.out;
+		prev  = o.prev;
+		pprev = o.pprev;
+		ofst  = o.ofst;
+		hword = o.hword;
+		hcnt  = o.hcnt;
+		thash = o.thash;
+		System.arraycopy(o.state, 0, state, 0, states);
+		} // copyState
+
    // initialize the etaus structure with
 	// three input parameters for s1,s2,s3
 	// respectively
 	// the input parameter is an array of three
 	// seeds of type int
 
-   public static void strt(int seed[])
+   public void strt(int seed[])
+	   {
+		int i;
+		PhaseEvent ev;
+		ev = Phase.begin("strt", 0);
+		s1 = seed[0];
+		s2 = seed[1];
+		s3 = seed[2];
+		// warm up the seeds
+		for (i=0;i<128;i++)
+		   {
+			int tmp;
+			tmp = smplgen();
+			} // for each warmup iteration
+		fill();
+		Phase.end(ev);
+		} // strt
+
+   // initialize the etaus structure to a substream
+	// of the stream started by strt(seed)
+	// The Tausworthe registers are advanced idx steps
+	// past the warm up, in logarithmic time, then the
+	// output states and the state array are filled from
+	// the next 16387 Tausworthe outputs, as in strt.
+	// strtAt(seed, 0) is the same as strt(seed).
+	// The Bays-Durham shuffle depends on every output
+	// before it, so it cannot be advanced by a jump.
+	// Instead, each substream has its own state array,
+	// a function of seed and idx only.  A substream
+	// started at idx uses Tausworthe outputs idx to
+	// idx + 16386 for its state array, and one more
+	// output for each gen().  Substreams started at
+	// least that many steps apart never overlap.
+	// A long run that restarts a substream at a fixed
+	// interval of outputs, the checkpoint interval, can
+	// be replayed from any checkpoint without generating
+	// the outputs before it.
+
+   public void strtAt(int seed[], long idx)
 	   {
 		int i;
+		PhaseEvent ev;
+		ev = Phase.begin("strt", 0);
 		s1 = seed[0];
 		s2 = seed[1];
 		s3 = seed[2];
@@ -286,6 +743,18 @@ public class Etaus
 			int tmp;
 			tmp = smplgen();
 			} // for each warmup iteration
+		jump(idx);
+		fill();
+		Phase.end(ev);
+		} // strtAt
+
+   // populate the output states and the state array
+	// with random data
+
+   private void fill()
+	   {
+		int i;
+		hcnt  = 0;
 		out   = smplgen();
 		prev  = smplgen();
 		pprev = smplgen();
@@ -297,7 +766,94 @@ public class Etaus
 			tmp = smplgen();
 			state[i] = tmp;
 			} // for each warmup iteration
-		} // strt
+		} // fill
+
+   // Advance the three Tausworthe registers n steps,
+	// as if smplgen() were called n times.
+	// n is treated as an unsigned 64-bit number.
+	// Each of one(), two() and tre() is linear over GF(2),
+	// so n steps are a 32x32 bit matrix raised to the
+	// power n.  The matrices for the powers of two are
+	// built once, and a jump multiplies the registers by
+	// one matrix for each bit set in n.
+	// The output states and the state array are not
+	// changed.
+
+   public void jump(long n)
+	   {
+		int k;
+		int tbl[][][];
+		tbl = Jump.tbl;
+		for (k=0;k<64;k++)
+		   {
+			if (((n >>> k) & 1L) != 0L)
+			   {
+				s1 = mul(tbl[0][k], s1);
+				s2 = mul(tbl[1][k], s2);
+				s3 = mul(tbl[2][k], s3);
+				} // if bit k set in n
+			} // for each bit in n
+		out = s1 ^ s2 ^ s3;
+		} // jump
+
+   // multiply a 32x32 bit matrix by a 32-bit vector
+	// column j of the matrix is the image of bit j
+
+   private static int mul(int mat[], int v)
+	   {
+		int j;
+		int rslt;
+		rslt = 0;
+		for (j=0;j<32;j++)
+		   {
+			rslt ^= mat[j] & -((v >>> j) & 1);
+			} // for each bit in vector
+		return(rslt);
+		} // mul
+
+   // The jump matrices are built the first time they are
+	// used.  tbl[c][k] is the matrix for 2^k steps of
+	// Tausworthe component c.
+
+   private static class Jump
+	   {
+		private static final int tbl[][][] = bldJump();
+
+		private static int[][][] bldJump()
+		   {
+			int c;
+			int j;
+			int k;
+			int tbl[][][] = new int[3][64][32];
+			Etaus et = new Etaus();
+			// one step of each component, applied to each bit
+			for (j=0;j<32;j++)
+			   {
+				et.s1 = 1 << j;
+				et.s2 = 1 << j;
+				et.s3 = 1 << j;
+				et.one();
+				et.two();
+				et.tre();
+				tbl[0][0][j] = et.s1;
+				tbl[1][0][j] = et.s2;
+				tbl[2][0][j] = et.s3;
+				} // for each bit
+			// square each matrix to double the steps
+			for (c=0;c<3;c++)
+			   {
+				for (k=1;k<64;k++)
+				   {
+					for (j=0;j<32;j++)
+					   {
+						tbl[c][k][j] = mul(tbl[c][k-1], tbl[c][k-1][j]);
+						} // for each column
+					} // for each power of two
+				} // for each component
+			return(tbl);
+			} // bldJump
+
+		} // class Jump
 
    public static void aboutEtaus()
 	   {
@@ -0,0 +1,225 @@
+// EtausCycle.java - Find the period of etaus  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This program finds the cycle of the etaus generator
+// started with the given seeds, with Brent's algorithm.
+// Each gen() maps the whole state of the generator, the
+// three Tausworthe registers, the output states and the
+// state array, to the next state.  From the seeds, the
+// states run through a tail of mu states, then repeat
+// with a period of lambda states.
+// A good seed has a period far too long to find.  A bad
+// seed, such as zero, leaves the Tausworthe registers at
+// zero, and the generator falls into a short cycle.
+// WrapTmpl makes a period by starting etaus again.  With
+// -r, this program starts etaus again every so many
+// outputs, and finds that period.
+// Brent's algorithm keeps two states, the hare and the
+// tortoise.  The hare steps ahead, and the tortoise
+// jumps to the hare at each power of two steps, until
+// the hare meets the tortoise.  The distance is the
+// period.  Then the tail is found by starting again from
+// the seeds, with the hare lambda steps ahead of the
+// tortoise, and stepping both until they meet.
+// The memory is two copies of the state, no matter how
+// long the run.  Two states are compared in constant
+// time by their hashes, kept by Etaus.genHashed(), and
+// only equal hashes are compared in full, so the tail
+// and the period are exact.
+//**********************************************************
+
+public class EtausCycle
+   {
+
+   private Etaus et;          // etaus class instance
+   private int seed[];        // seeds to start with
+   private long restart;      // #outputs before starting again, or 0
+   private long count;        // #outputs since the start
+
+	EtausCycle(int seed[], long restart)
+	   {
+		this.seed    = seed;
+		this.restart = restart;
+		et = new Etaus();
+		start();
+		} // constructor
+
+   // start etaus with the seeds
+
+   private void start()
+	   {
+		et.strt(seed);
+		et.hashTable();
+		count = 0;
+		} // start
+
+   // one output of the generator
+
+   public void step()
+	   {
+		if (restart > 0 && count == restart)
+		   {
+			start();
+			} // if time to start again
+		et.genHashed();
+		count = count + 1;
+		} // step
+
+   // return true if the state is the same as that of c
+	// With -r, the count of outputs is part of the state.
+
+   public boolean same(EtausCycle c)
+	   {
+		if (restart > 0 && count != c.count) return(false);
+		return(et.sameState(c.et));
+		} // same
+
+   // copy the state of c
+
+   public void copy(EtausCycle c)
+	   {
+		et.copyState(c.et);
+		count = c.count;
+		} // copy
+
+	// Usage: java EtausCycle [-s seed1 seed2 seed3]
+	//                        [-m steps] [-r restart]
+	// -s gives the three seeds in hex, as printed by the
+	//    template tests.  By default, the seeds are random.
+	// -m is the most steps of the hare, one billion by
+	//    default.
+	// -r starts etaus again with the same seeds every
+	//    restart outputs.
+
+	public static void main(String arg[])
+	   {
+		int i;
+		int seed[] = null;
+		long j;
+		long limit = 1000000000L;
+		long restart = 0;
+		long power;
+		long lambda;
+		long mu;
+		long steps;
+		boolean ok = true;
+		EtausCycle hare;
+		EtausCycle tort;
+		for (i=0;i<arg.length;i++)
+		   {
+			if (arg[i].equals("-s") && i + 3 < arg.length)
+			   {
+				seed = new int[3];
+				seed[0] = Integer.parseUnsignedInt(arg[i+1], 16);
+				seed[1] = Integer.parseUnsignedInt(arg[i+2], 16);
+				seed[2] = Integer.parseUnsignedInt(arg[i+3], 16);
+				i = i + 3;
+				} // if seeds
+			else if (arg[i].equals("-m") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				limit = Long.parseLong(arg[i]);
+				} // else if most steps
+			else if (arg[i].equals("-r") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				restart = Long.parseLong(arg[i]);
+				} // else if start again
+			else
+			   {
+				ok = false;
+				} // else invalid parameter
+			} // for each parameter
+		if (!ok || limit < 1 || restart < 0)
+		   {
+			System.out.print("Usage: java EtausCycle ");
+			System.out.println("[-s seed1 seed2 seed3]");
+			System.out.print("                       ");
+			System.out.println("[-m steps] [-r restart]");
+			return;
+			} // if invalid parameter
+		if (seed == null)
+		   {
+			seed = TmplEngine.randomSeeds();
+			} // if random seeds
+		else
+		   {
+			for (i=0;i<3;i++)
+			   {
+				System.out.print("Seed " + (i + 1) + " ");
+				System.out.println(Integer.toHexString(seed[i]));
+				} // for each seed
+			} // else seeds given
+		//********************************************************
+		// Find the period: the hare steps until it meets
+		// the tortoise, which jumps to the hare at each
+		// power of two.
+		//********************************************************
+		hare = new EtausCycle(seed, restart);
+		tort = new EtausCycle(seed, restart);
+		power  = 1;
+		lambda = 1;
+		hare.step();
+		steps = 1;
+		while (!hare.same(tort))
+		   {
+			if (steps >= limit)
+			   {
+				System.out.print("No cycle in ");
+				System.out.print(steps);
+				System.out.println(" steps");
+				return;
+				} // if too many steps
+			if (power == lambda)
+			   {
+				tort.copy(hare);
+				power  = power * 2;
+				lambda = 0;
+				} // if power of two
+			hare.step();
+			lambda = lambda + 1;
+			steps  = steps + 1;
+			} // while not met
+		//********************************************************
+		// Find the tail: start again, with the hare lambda
+		// steps ahead of the tortoise.
+		//********************************************************
+		hare = new EtausCycle(seed, restart);
+		tort = new EtausCycle(seed, restart);
+		for (j=0;j<lambda;j++)
+		   {
+			hare.step();
+			} // for each step of the period
+		mu = 0;
+		while (!hare.same(tort))
+		   {
+			hare.step();
+			tort.step();
+			mu = mu + 1;
+			} // while not met
+		steps = steps + lambda + 2 * mu;
+		System.out.println();
+		System.out.printf("Tail length   %d\n", mu);
+		System.out.printf("Period        %d\n", lambda);
+		System.out.printf("Steps         %d\n", steps);
+		} // main
+
+	} // class EtausCycle
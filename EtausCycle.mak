@@ -0,0 +1,7 @@
+CC=javac
+
+EtausCycle.class:					EtausCycle.java
+			$(CC) EtausCycle.java
+
+clean:
+			rm -f EtausCycle.class
@@ -0,0 +1,359 @@
+// EtausLanes.java - Many etaus streams in vector lanes  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class runs many independent etaus streams at once,
+// one stream in each lane of a vector register, with the
+// Java Vector API.  A vector of 512 bits holds 16 streams,
+// and a vector of 256 bits holds 8.
+// The three Tausworthe registers and the three output
+// states of a group of streams are loaded into vectors,
+// and one(), two() and tre() are done for every lane with
+// one vector instruction each.  Each stream keeps its own
+// Bays-Durham state array of 16384 members, one after the
+// other in one large array, and the shuffle reads and
+// writes one member of each lane's array, so the streams
+// stay independent.  The shuffle is a loop over the
+// lanes, since the gather and scatter of the Vector API
+// in JDK 17 crashed the JIT compiled code on 512-bit
+// vectors.
+// The random reads of the state arrays, not the
+// Tausworthe steps, set the pace of a large sweep, so
+// the lanes save the most on genBits(), where the bit
+// test is done in vectors too.
+// Each lane gives the same outputs as a scalar Etaus in
+// the same state.  The streams are started with Etaus,
+// strt() or strtAt(), and copied in with set().  get()
+// copies a stream back out to an Etaus, which goes on
+// from where the lane stopped.
+// The outputs of one step of every stream are next to
+// each other: output i of stream k is buf[i * streams + k].
+// genBits() packs the bits of each stream apart.
+// The module is incubating, so this class is compiled and
+// run with --add-modules jdk.incubator.vector.
+//**********************************************************
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class EtausLanes
+   {
+
+   private static final VectorSpecies<Integer> species =
+	   IntVector.SPECIES_PREFERRED;
+	// #streams in a vector
+   private static final int lanes = species.length();
+	// number of states in each state array
+   private static final int states = Etaus.states;
+	private static final int msk1 = 0xfffffffe;
+	private static final int msk2 = 0xfffffff8;
+	private static final int msk3 = 0xfffffff0;
+
+   private int streams;      // #streams, a multiple of lanes
+   private int s1[];         // taus s1 of each stream
+   private int s2[];         // taus s2 of each stream
+   private int s3[];         // taus s3 of each stream
+   private int out[];        // current output state of each stream
+   private int prev[];       // prev output state of each stream
+   private int pprev[];      // prev prev output state of each stream
+	// state arrays, stream k at k * states
+   private int state[];
+	// last four outputs of each lane of a group,
+	// step i at (i & 3) * lanes
+   private int hist[];
+	// Tausworthe outputs of a step, one for each lane
+   private int tv[];
+	// scratch for the bits of each lane
+   private int lo[];
+   private int hi[];
+	// for copying a stream in and out
+   private int reg[];
+
+	// At least n streams.  The number is rounded up to a
+	// whole number of vectors.
+
+	EtausLanes(int n)
+	   {
+		streams = ((Math.max(n, 1) + lanes - 1) / lanes) * lanes;
+		s1    = new int[streams];
+		s2    = new int[streams];
+		s3    = new int[streams];
+		out   = new int[streams];
+		prev  = new int[streams];
+		pprev = new int[streams];
+		state = new int[streams * states];
+		hist  = new int[4 * lanes];
+		tv    = new int[lanes];
+		lo    = new int[lanes];
+		hi    = new int[lanes];
+		reg   = new int[Etaus.regs];
+		} // constructor
+
+   // return the number of streams
+
+   public int streams()
+	   {
+		return(streams);
+		} // streams
+
+   // return the number of streams in a vector
+
+   public static int lanes()
+	   {
+		return(lanes);
+		} // lanes
+
+   // copy the state of et into stream k
+	// The harvest word of et is not kept.
+
+   public void set(int k, Etaus et)
+	   {
+		et.getRegs(reg);
+		s1[k]    = reg[0];
+		s2[k]    = reg[1];
+		s3[k]    = reg[2];
+		out[k]   = reg[3];
+		prev[k]  = reg[4];
+		pprev[k] = reg[5];
+		System.arraycopy(et.stateArray(), 0, state, k * states, states);
+		} // set
+
+   // copy the state of stream k into et, so that et goes
+	// on with the same outputs
+
+   public void get(int k, Etaus et)
+	   {
+		reg[0] = s1[k];
+		reg[1] = s2[k];
+		reg[2] = s3[k];
+		reg[3] = out[k];
+		reg[4] = prev[k];
+		reg[5] = pprev[k];
+		et.setRegs(reg);
+		System.arraycopy(state, k * states, et.stateArray(), 0, states);
+		} // get
+
+   // start stream k with strt(seed[k]) of Etaus
+	// The streams past the last seed, which fill out the
+	// last vector, start again from the first seeds.
+
+   public void strt(int seed[][])
+	   {
+		int k;
+		Etaus et;
+		et = new Etaus();
+		for (k=0;k<streams;k++)
+		   {
+			et.strt(seed[k % seed.length]);
+			set(k, et);
+			} // for each stream
+		} // strt
+
+   // start stream k with strtAt(seed, k * gap) of Etaus,
+	// substreams of one stream gap outputs apart
+
+   public void strtAt(int seed[], long gap)
+	   {
+		int k;
+		Etaus et;
+		et = new Etaus();
+		for (k=0;k<streams;k++)
+		   {
+			et.strtAt(seed, k * gap);
+			set(k, et);
+			} // for each stream
+		} // strtAt
+
+   //***********************************************************
+	// The inner loop of each bulk method holds the
+	// Tausworthe registers of one group of streams in
+	// vectors for all the steps, then stores them back and
+	// goes on to the next group.  Each step is gen() of
+	// Etaus, one lane per stream.
+	// The shuffle is done one lane at a time by shuffle().
+	// The offset into the state array is the output of
+	// three steps before, so the last four outputs of each
+	// lane are kept in a ring, hist[].
+	//***********************************************************
+
+   // load the output states of group g into the ring, as
+	// the outputs of steps -3, -2 and -1
+
+   private void begin(int g)
+	   {
+		System.arraycopy(pprev, g, hist, 1 * lanes, lanes);
+		System.arraycopy(prev,  g, hist, 2 * lanes, lanes);
+		System.arraycopy(out,   g, hist, 3 * lanes, lanes);
+		} // begin
+
+   // store the output states of group g after n steps
+
+   private void end(int g, int n)
+	   {
+		System.arraycopy(hist, ((n - 1) & 3) * lanes, out,   g, lanes);
+		System.arraycopy(hist, ((n - 2) & 3) * lanes, prev,  g, lanes);
+		System.arraycopy(hist, ((n - 3) & 3) * lanes, pprev, g, lanes);
+		} // end
+
+   // Bays-Durham shuffle of step i of group g, one member
+	// of each lane's own state array
+	// The new Tausworthe outputs are in tv[].
+	// return the offset of the outputs in hist[]
+
+   private int shuffle(int g, int i)
+	   {
+		int j;
+		int cur;
+		int old;
+		int off;
+		int bs;
+		cur = (i & 3) * lanes;
+		old = ((i + 1) & 3) * lanes;
+		bs  = g * states;
+		for (j=0;j<lanes;j++)
+		   {
+			off = bs + (hist[old + j] >>> 18);
+			hist[cur + j] = state[off];
+			state[off] = tv[j];
+			bs = bs + states;
+			} // for each lane
+		return(cur);
+		} // shuffle
+
+   // fill buf[0] to buf[steps * streams - 1] with the next
+	// steps outputs of gen() of every stream
+	// Output i of stream k is buf[i * streams + k].
+
+   public void genInts(int buf[], int steps)
+	   {
+		int g;
+		int i;
+		int cur;
+		IntVector a1;
+		IntVector a2;
+		IntVector a3;
+		for (g=0;g<streams;g+=lanes)
+		   {
+			a1 = IntVector.fromArray(species, s1, g);
+			a2 = IntVector.fromArray(species, s2, g);
+			a3 = IntVector.fromArray(species, s3, g);
+			begin(g);
+			for (i=0;i<steps;i++)
+			   {
+				a1 = step(a1, msk1, 12, 13, 19);
+				a2 = step(a2, msk2, 4, 2, 25);
+				a3 = step(a3, msk3, 17, 3, 11);
+				a1.lanewise(VectorOperators.XOR, a2)
+				   .lanewise(VectorOperators.XOR, a3).intoArray(tv, 0);
+				cur = shuffle(g, i);
+				System.arraycopy(hist, cur, buf, i * streams + g, lanes);
+				} // for each step
+			a1.intoArray(s1, g);
+			a2.intoArray(s2, g);
+			a3.intoArray(s3, g);
+			end(g, steps);
+			} // for each group of streams
+		} // genInts
+
+   // fill bits[] with the next nbits outputs of genbit()
+	// of every stream
+	// The bits of stream k are words k * words to
+	// (k + 1) * words - 1, where words is (nbits + 63) / 64,
+	// in the layout of Etaus.genBits().
+
+   public void genBits(long bits[], int nbits)
+	   {
+		int g;
+		int i;
+		int j;
+		int cur;
+		int words;
+		IntVector a1;
+		IntVector a2;
+		IntVector a3;
+		IntVector wlo;
+		IntVector whi;
+		IntVector bit;
+		words = (nbits + 63) >>> 6;
+		for (g=0;g<streams;g+=lanes)
+		   {
+			a1 = IntVector.fromArray(species, s1, g);
+			a2 = IntVector.fromArray(species, s2, g);
+			a3 = IntVector.fromArray(species, s3, g);
+			begin(g);
+			wlo = IntVector.zero(species);
+			whi = wlo;
+			for (i=0;i<nbits;i++)
+			   {
+				a1 = step(a1, msk1, 12, 13, 19);
+				a2 = step(a2, msk2, 4, 2, 25);
+				a3 = step(a3, msk3, 17, 3, 11);
+				a1.lanewise(VectorOperators.XOR, a2)
+				   .lanewise(VectorOperators.XOR, a3).intoArray(tv, 0);
+				cur = shuffle(g, i);
+				// the same test as genbit()
+				bit = IntVector.fromArray(species, hist, cur)
+				   .lanewise(VectorOperators.ABS)
+					.lanewise(VectorOperators.LSHR, 30).add(1)
+					.lanewise(VectorOperators.LSHR, 1)
+					.lanewise(VectorOperators.LSHL, i & 31);
+				if ((i & 32) == 0)
+				   {
+					wlo = wlo.or(bit);
+					} // if low half of the word
+				else
+				   {
+					whi = whi.or(bit);
+					} // else high half
+				if ((i & 63) == 63 || i == nbits - 1)
+				   {
+					wlo.intoArray(lo, 0);
+					whi.intoArray(hi, 0);
+					for (j=0;j<lanes;j++)
+					   {
+						bits[(g + j) * words + (i >>> 6)] =
+						   ((long) hi[j] << 32) | (lo[j] & 0xffffffffL);
+						} // for each lane
+					wlo = IntVector.zero(species);
+					whi = wlo;
+					} // if word is full
+				} // for each step
+			a1.intoArray(s1, g);
+			a2.intoArray(s2, g);
+			a3.intoArray(s3, g);
+			end(g, nbits);
+			} // for each group of streams
+		} // genBits
+
+   // one part of the Tausworthe algorithm, in every lane
+	// s = ((s & msk) << a) ^ (((s << b) ^ s) >>> c)
+
+   private static IntVector step(IntVector s, int msk, int a,
+	   int b, int c)
+	   {
+		return(s.and(msk).lanewise(VectorOperators.LSHL, a)
+		   .lanewise(VectorOperators.XOR,
+			s.lanewise(VectorOperators.LSHL, b)
+			.lanewise(VectorOperators.XOR, s)
+			.lanewise(VectorOperators.LSHR, c)));
+		} // step
+
+	} // class EtausLanes
@@ -0,0 +1,10 @@
+CC=javac
+# The Vector API is an incubator module, and javac
+# warns that it is incubating.
+FLAGS=--add-modules jdk.incubator.vector
+
+EtausLanes.class:					EtausLanes.java
+			$(CC) $(FLAGS) EtausLanes.java
+
+clean:
+			rm -f EtausLanes.class
@@ -0,0 +1,77 @@
+// EtausSrc.java - Uniform bit source from etaus  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+
+//**********************************************************
+// This class is the uniform source of bits for the
+// template test.  Each bit is one genbit() of etaus,
+// one bit per etaus output.
+//**********************************************************
+
+import java.nio.ByteBuffer;
+
+public class EtausSrc implements SplitSrc, SaveSrc
+   {
+
+   private Etaus et;        // etaus class instance
+
+	EtausSrc(Etaus et)
+	   {
+		this.et = et;
+		} // constructor
+
+   public int nextBit()
+	   {
+		return(et.genbit());
+		} // nextBit
+
+   // the same bits as genbit(), by the bulk generator
+
+   public int nextBits(long bits[], int nbits)
+	   {
+		et.genBits(bits, nbits);
+		return(nbits);
+		} // nextBits
+
+   public BitSrc sub(int seed[], long base)
+	   {
+		Etaus sub = new Etaus();
+		sub.strtAt(seed, base);
+		return(new EtausSrc(sub));
+		} // sub
+
+   // the state of the source is the state of etaus
+
+   public int saveSize()
+	   {
+		return(Etaus.saveSize);
+		} // saveSize
+
+   public void save(ByteBuffer bb)
+	   {
+		et.save(bb);
+		} // save
+
+   public void load(ByteBuffer bb)
+	   {
+		et.load(bb);
+		} // load
+
+   } // class EtausSrc
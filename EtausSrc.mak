@@ -0,0 +1,7 @@
+CC=javac
+
+EtausSrc.class:					EtausSrc.java
+			$(CC) EtausSrc.java
+
+clean:
+			rm -f EtausSrc.class
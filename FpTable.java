@@ -0,0 +1,185 @@
+// FpTable.java - Off-heap table of window fingerprints  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is a hash table of the fingerprints of
+// windows of a bit stream, with the position of each
+// window, for RepeatScan.
+// The table is one direct byte buffer, outside of the
+// Java heap, so a large table costs the garbage
+// collector nothing.  Each slot is 16 bytes: the 64-bit
+// fingerprint and the position plus one.  A position of
+// zero is an empty slot.  Collisions go to the next slot,
+// open addressing with linear probing.
+// The size of the table is fixed by a memory budget.
+// Only the fingerprints whose top level bits are zero are
+// kept.  When the table is three quarters full, the level
+// goes up by one, and the fingerprints that no longer
+// qualify, about half, are removed.  The windows kept
+// depend only on their contents, so if a window is kept,
+// every repeat of it is kept too.
+//**********************************************************
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class FpTable
+   {
+
+	// most slots, so the buffer is less than 2^31 bytes
+   private static final int maxSlots = 1 << 26;
+
+   private ByteBuffer tbl;    // slots, 16 bytes each
+   private int slots;         // #slots, a power of two
+   private int mask;          // slots - 1
+   private int used;          // #slots in use
+   private int level;         // #top bits of zero to keep
+
+	// A table of at most budget bytes
+
+	FpTable(long budget)
+	   {
+		long n;
+		n = Math.max(16L, Math.min(budget / 16, (long) maxSlots));
+		slots = Integer.highestOneBit((int) n);
+		mask  = slots - 1;
+		tbl   = ByteBuffer.allocateDirect(slots * 16);
+		tbl.order(ByteOrder.nativeOrder());
+		used  = 0;
+		level = 0;
+		} // constructor
+
+   // return the number of top bits of zero that a
+	// fingerprint needs to be kept
+
+   public int level()
+	   {
+		return(level);
+		} // level
+
+   // return the number of bytes in the table
+
+   public long bytes()
+	   {
+		return((long) slots * 16);
+		} // bytes
+
+   // return true if fingerprint h is kept at this level
+
+   public boolean keep(long h)
+	   {
+		return(level == 0 || (h >>> (64 - level)) == 0L);
+		} // keep
+
+   // return the first slot for fingerprint h
+	// The top bits of h may be zero, so h is mixed first.
+
+   private int home(long h)
+	   {
+		h = (h ^ (h >>> 31)) * 0x9e3779b97f4a7c15L;
+		return((int) (h >>> 32) & mask);
+		} // home
+
+   // return the position of a window with fingerprint h,
+	// or -1
+
+   public long find(long h)
+	   {
+		int i;
+		long p;
+		i = home(h);
+		while (true)
+		   {
+			p = tbl.getLong(i * 16 + 8);
+			if (p == 0L) return(-1L);
+			if (tbl.getLong(i * 16) == h) return(p - 1);
+			i = (i + 1) & mask;
+			} // for each slot in the chain
+		} // find
+
+   // add the window at posn with fingerprint h, if it is
+	// kept
+
+   public void put(long h, long posn)
+	   {
+		if (!keep(h)) return;
+		store(h, posn + 1);
+		used = used + 1;
+		while (used * 4L >= slots * 3L)
+		   {
+			thin();
+			} // while three quarters full
+		} // put
+
+   // store fingerprint h and position plus one p in the
+	// first empty slot of its chain
+
+   private void store(long h, long p)
+	   {
+		int i;
+		i = home(h);
+		while (tbl.getLong(i * 16 + 8) != 0L)
+		   {
+			i = (i + 1) & mask;
+			} // for each slot in use
+		tbl.putLong(i * 16, h);
+		tbl.putLong(i * 16 + 8, p);
+		} // store
+
+   // Go up one level, and remove the fingerprints that
+	// are not kept.  Then every fingerprint left is taken
+	// out and stored again, so that no chain has a gap.
+	// The sweep starts after an empty slot, so that each
+	// chain is stored again from its start.
+
+   private void thin()
+	   {
+		int i;
+		int k;
+		int start;
+		long h;
+		long p;
+		level = level + 1;
+		for (i=0;i<slots;i++)
+		   {
+			p = tbl.getLong(i * 16 + 8);
+			if (p != 0L && !keep(tbl.getLong(i * 16)))
+			   {
+				tbl.putLong(i * 16 + 8, 0L);
+				used = used - 1;
+				} // if not kept
+			} // for each slot
+		start = 0;
+		while (tbl.getLong(start * 16 + 8) != 0L)
+		   {
+			start = start + 1;
+			} // while slot in use
+		for (k=1;k<=slots;k++)
+		   {
+			i = (start + k) & mask;
+			p = tbl.getLong(i * 16 + 8);
+			if (p == 0L) continue;
+			h = tbl.getLong(i * 16);
+			tbl.putLong(i * 16 + 8, 0L);
+			store(h, p);
+			} // for each slot
+		} // thin
+
+	} // class FpTable
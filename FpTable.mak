@@ -0,0 +1,7 @@
+CC=javac
+
+FpTable.class:					FpTable.java
+			$(CC) FpTable.java
+
+clean:
+			rm -f FpTable.class
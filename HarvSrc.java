@@ -0,0 +1,74 @@
+// HarvSrc.java - Harvest mode bit source from etaus  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+
+//**********************************************************
+// This class is the uniform source of bits for the
+// template test in harvest mode.  Each etaus output gives
+// 32 bits, most significant bit first, from genharv().
+//**********************************************************
+
+import java.nio.ByteBuffer;
+
+public class HarvSrc implements SplitSrc, SaveSrc
+   {
+
+   private Etaus et;        // etaus class instance
+
+	HarvSrc(Etaus et)
+	   {
+		this.et = et;
+		} // constructor
+
+   public int nextBit()
+	   {
+		return(et.genharv());
+		} // nextBit
+
+   public long outputs(long nbits)
+	   {
+		return((nbits + 31) / 32);
+		} // outputs
+
+   public BitSrc sub(int seed[], long base)
+	   {
+		Etaus sub = new Etaus();
+		sub.strtAt(seed, base);
+		return(new HarvSrc(sub));
+		} // sub
+
+   // the state of the source is the state of etaus
+
+   public int saveSize()
+	   {
+		return(Etaus.saveSize);
+		} // saveSize
+
+   public void save(ByteBuffer bb)
+	   {
+		et.save(bb);
+		} // save
+
+   public void load(ByteBuffer bb)
+	   {
+		et.load(bb);
+		} // load
+
+   } // class HarvSrc
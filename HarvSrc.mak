@@ -0,0 +1,7 @@
+CC=javac
+
+HarvSrc.class:					HarvSrc.java
+			$(CC) HarvSrc.java
+
+clean:
+			rm -f HarvSrc.class
@@ -0,0 +1,176 @@
+// MappedSrc.java - Bit source from a memory mapped file  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is a source of bits from a file of raw bytes
+// on local disk, read through a memory map instead of
+// a stream.  It is used by the parallel mode of the
+// template test on a file, TmplEngine.takeSamplesMap().
+// The file is not copied.  Each worker maps its own
+// part of the file with FileChannel.map, and takes its
+// bits straight from the page cache.
+// The bits are unpacked the same way as in StreamSrc,
+// eight bytes at a time, in msb first or lsb first order.
+// The first source made covers the whole input, from
+// byte skip for nbytes bytes.  sub() makes a source that
+// starts at any bit of the input.  A map holds at most
+// 2^31-1 bytes, so each sub source covers at most that
+// much of the input from its first bit.
+// At the end of the part mapped, nextBit() returns -1.
+//**********************************************************
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedSrc implements SplitSrc
+   {
+
+   private FileChannel ch;       // input file
+   private boolean msbFirst;     // bit order in each byte
+   private long skip;            // first byte of the input
+   private long nbytes;          // #bytes in the input
+   private MappedByteBuffer buf; // part of the file mapped
+   private long word;            // bits not yet used
+   private int nbits;            // #bits left in word
+
+	MappedSrc(FileChannel ch, boolean msbFirst, long skip,
+	   long nbytes)
+	   {
+		this.ch       = ch;
+		this.msbFirst = msbFirst;
+		this.skip     = skip;
+		this.nbytes   = nbytes;
+		buf   = null;
+		word  = 0;
+		nbits = 0;
+		} // constructor
+
+   // return the number of bits in the input
+
+   public long bitCount()
+	   {
+		return(nbytes * 8);
+		} // bitCount
+
+   // Map the part of the input from byte ofst to the end,
+	// or as much of it as one map holds.
+
+   private void map(long ofst)
+	   {
+		long len;
+		len = Math.min(nbytes - ofst, (long) Integer.MAX_VALUE);
+		try
+		   {
+			buf = ch.map(FileChannel.MapMode.READ_ONLY, skip + ofst,
+			   len);
+			} // try
+		catch (IOException e)
+		   {
+			throw new UncheckedIOException(e);
+			} // catch
+		if (msbFirst)
+		   {
+			buf.order(ByteOrder.BIG_ENDIAN);
+			} // if msb first
+		else
+		   {
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			} // else lsb first
+		} // map
+
+   // return a new source that starts at bit base of the
+	// input.  The seeds are not used.
+
+   public BitSrc sub(int seed[], long base)
+	   {
+		int i;
+		MappedSrc sub;
+		sub = new MappedSrc(ch, msbFirst, skip, nbytes);
+		sub.map(base >>> 3);
+		// skip the bits before base in its byte
+		for (i=0;i<(int) (base & 7);i++)
+		   {
+			sub.nextBit();
+			} // for each bit before base
+		return(sub);
+		} // sub
+
+   // Take the next word of bits from the map.
+	// Near the end of the map, take one byte at a time.
+	// return false at the end of the map
+
+   private boolean nextWord()
+	   {
+		int b;
+		if (buf == null)
+		   {
+			map(0);
+			} // if first use
+		if (buf.remaining() >= 8)
+		   {
+			word  = buf.getLong();
+			nbits = 64;
+			return(true);
+			} // if whole word
+		if (buf.hasRemaining())
+		   {
+			b = buf.get() & 0xff;
+			if (msbFirst)
+			   {
+				word = (long) b << 56;
+				} // if msb first
+			else
+			   {
+				word = (long) b;
+				} // else lsb first
+			nbits = 8;
+			return(true);
+			} // if one byte
+		return(false);
+		} // nextWord
+
+   // return the next bit, zero or one
+	// return -1 at the end of the map
+
+   public int nextBit()
+	   {
+		int bit;
+		if (nbits == 0 && !nextWord())
+		   {
+			return(-1);
+			} // if end of map
+		nbits = nbits - 1;
+		if (msbFirst)
+		   {
+			bit = (int) (word >>> 63);
+			word = word << 1;
+			} // if msb first
+		else
+		   {
+			bit = (int) word & 1;
+			word = word >>> 1;
+			} // else lsb first
+		return(bit);
+		} // nextBit
+
+   } // class MappedSrc
@@ -0,0 +1,7 @@
+CC=javac
+
+MappedSrc.class:					MappedSrc.java
+			$(CC) MappedSrc.java
+
+clean:
+			rm -f MappedSrc.class
@@ -0,0 +1,44 @@
+// MatchKernel.java - Kernel of the template match  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This interface is the inner loop of the template match:
+// compare a window of packed bits with the template until
+// the first difference.  BitRing and TmplScan call it.
+// ScalarKernel compares 64 bits at a time.  VecKernel
+// compares a whole vector register at a time, with the
+// Java Vector API, where the module jdk.incubator.vector
+// is there.  BitRing.useKernel() picks one at run time.
+// The count is the same with either kernel.
+//**********************************************************
+
+public interface MatchKernel
+   {
+
+   // return the number of bits, left to right, of the
+	// window at bit pos of buf[] that match the template,
+	// up to len bits
+	// buf[] is a ring of words: the word after the last
+	// is word zero.  Bit i of the template is bit (i & 63)
+	// of tmpl[i >>> 6].
+
+   public int match(long buf[], int pos, long tmpl[], int len);
+
+	} // interface MatchKernel
@@ -0,0 +1,7 @@
+CC=javac
+
+MatchKernel.class:					MatchKernel.java
+			$(CC) MatchKernel.java
+
+clean:
+			rm -f MatchKernel.class
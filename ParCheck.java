@@ -0,0 +1,134 @@
+// ParCheck.java - Check the live tallies of -p  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This program checks the tallies that TmplStats and the
+// -w report read while the workers of -p run.  One thread
+// takes the samples with TmplEngine.takeSamplesPar(), as
+// Template -p does, and the main thread takes snapshots
+// of the tallies until it ends.
+// A worker publishes its count of samples every
+// TmplEngine.clockSteps samples, and its tally runs
+// ahead of the count by less than that, plus the size
+// of its first sample queue.  So a snapshot may never
+// tally more than progress() plus that much for each
+// worker.  A tally counted twice goes far past it.
+// At the end the tallies must be the samples taken.
+// The program prints OK, or the first bad snapshot and
+// exits with status 1.
+//**********************************************************
+
+public class ParCheck
+   {
+
+	// Usage: java ParCheck [-s size] [-n samples] [-p workers]
+
+	public static void main(String arg[])
+	   {
+		int i;
+		int size = 1024;
+		int workers = 4;
+		int looks = 0;
+		int nw;               // workers, for the run thread
+		long samples = 40000000L;
+		long total;
+		long most;
+		long act[];
+		double chi[] = new double[2];
+		boolean usage = false;
+		Etaus et;
+		EtausSrc src;
+		TmplEngine tmpl;
+		Thread run;
+		int parm[];
+		for (i=0;i<arg.length;i++)
+		   {
+			if (arg[i].equals("-s") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				size = Integer.parseInt(arg[i]);
+				} // if template size
+			else if (arg[i].equals("-n") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				samples = Long.parseLong(arg[i]);
+				} // else if number of samples
+			else if (arg[i].equals("-p") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				workers = Integer.parseInt(arg[i]);
+				} // else if number of workers
+			else
+			   {
+				usage = true;
+				} // else invalid parameter
+			} // for each parameter
+		if (usage || size < 1 || samples < 1 || workers < 1)
+		   {
+			System.out.print("Usage: java ParCheck ");
+			System.out.println("[-s size] [-n samples] [-p workers]");
+			return;
+			} // if invalid parameter
+		et   = new Etaus();
+		src  = new EtausSrc(et);
+		parm = TmplEngine.randomSeeds();
+		et.strt(parm);
+		tmpl = new TmplEngine(size, samples, 0.5);
+		tmpl.bldTemplate(src);
+		act  = new long[tmpl.tallies()];
+		nw   = workers;
+		run  = new Thread(() -> tmpl.takeSamplesPar(src, parm, nw,
+		   false));
+		run.start();
+		while (run.isAlive())
+		   {
+			total = tmpl.snapshot(act, chi);
+			most  = tmpl.progress()
+			   + workers * (TmplEngine.clockSteps + size + 1);
+			if (total > most)
+			   {
+				System.out.print("ParCheck: " + total);
+				System.out.print(" tallied, at most " + most);
+				System.out.println(" after " + looks + " snapshots");
+				System.exit(1);
+				} // if tallied more than taken
+			looks = looks + 1;
+			} // while the workers run
+		try
+		   {
+			run.join();
+			} // try
+		catch (InterruptedException e)
+		   {
+			return;
+			} // catch
+		total = tmpl.snapshot(act, chi);
+		if (total != tmpl.samplesDone())
+		   {
+			System.out.print("ParCheck: " + total);
+			System.out.print(" tallied, " + tmpl.samplesDone());
+			System.out.println(" taken");
+			System.exit(1);
+			} // if end tallies are not the samples
+		System.out.print("ParCheck: OK, " + looks);
+		System.out.println(" snapshots");
+		} // main
+
+	} // class ParCheck
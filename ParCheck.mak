@@ -0,0 +1,7 @@
+CC=javac
+
+ParCheck.class:					ParCheck.java
+			$(CC) ParCheck.java
+
+clean:
+			rm -f ParCheck.class
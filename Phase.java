@@ -0,0 +1,85 @@
+// Phase.java - Start and end of a flight recorder phase  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class starts and ends the PhaseEvent of each phase
+// of a template test.
+// Loading the first flight recorder event class starts
+// the flight recorder's metadata, about a third of a
+// second, even with no recording.  So a phase makes an
+// event only once the flight recorder is up, either from
+// -XX:StartFlightRecording or from jcmd JFR.start, and
+// otherwise PhaseEvent and RateEvent are never loaded.
+// The same holds for the periodic RateEvent of each
+// sampling loop, added by watch() and removed by
+// unwatch().
+//**********************************************************
+
+import jdk.jfr.FlightRecorder;
+
+public class Phase
+   {
+
+   // return a started event for the named phase, or null
+	// if the flight recorder is not up
+
+   public static PhaseEvent begin(String phase, int size)
+	   {
+		if (!FlightRecorder.isInitialized())
+		   {
+			return(null);
+			} // if no flight recorder
+		return(new PhaseEvent(phase, size));
+		} // begin
+
+   // end the phase and record its event
+
+   public static void end(PhaseEvent ev)
+	   {
+		if (ev != null)
+		   {
+			ev.commit();
+			} // if recorder was up
+		} // end
+
+   // return the RateEvent hook of the engine eng, about
+	// to take samples, or null if the flight recorder is
+	// not up
+
+   public static Runnable watch(TmplEngine eng, int size)
+	   {
+		if (!FlightRecorder.isInitialized())
+		   {
+			return(null);
+			} // if no flight recorder
+		return(RateEvent.watch(eng, size));
+		} // watch
+
+   // remove the hook from watch(), if any
+
+   public static void unwatch(Runnable hook)
+	   {
+		if (hook != null)
+		   {
+			FlightRecorder.removePeriodicEvent(hook);
+			} // if recorder was up
+		} // unwatch
+
+	} // class Phase
@@ -0,0 +1,7 @@
+CC=javac
+
+Phase.class:					Phase.java
+			$(CC) Phase.java
+
+clean:
+			rm -f Phase.class
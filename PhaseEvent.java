@@ -0,0 +1,71 @@
+// PhaseEvent.java - Flight recorder event of a run phase  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is a Java Flight Recorder event for one
+// phase of a template test, so that a recording shows
+// where the wall time of a run goes.  The phases are:
+//    seeds        - the random seeds from Math.random()
+//    strt         - etaus warm up and state array fill
+//    bldTemplate  - the template, and its automaton
+//    bldActual    - the first sample queue
+//    takeSamples  - the sampling loop
+//    calcChisq    - the chi square and its report
+// The event has the start time and the duration of the
+// phase, and the template size.
+// The phases are far apart, so the events are always on
+// while the flight recorder is up.  Phase starts and
+// ends them.  Record a run with, for example:
+//    java -XX:StartFlightRecording=filename=run.jfr Template
+// and read it with jfr print --categories "Template Test"
+// run.jfr, or with JDK Mission Control.
+// See RateEvent for the throughput of the sampling loop.
+//**********************************************************
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("template.Phase")
+@Label("Template Phase")
+@Category("Template Test")
+@Description("One phase of a template test")
+public class PhaseEvent extends Event
+   {
+
+   @Label("Phase")
+   public String phase;
+
+   @Label("Template Size")
+   @Description("Number of bits in the template, or 0")
+   public int size;
+
+	// An event for the named phase, started now
+
+	PhaseEvent(String phase, int size)
+	   {
+		this.phase = phase;
+		this.size  = size;
+		begin();
+		} // constructor
+
+	} // class PhaseEvent
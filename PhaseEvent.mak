@@ -0,0 +1,7 @@
+CC=javac
+
+PhaseEvent.class:					PhaseEvent.java
+			$(CC) PhaseEvent.java
+
+clean:
+			rm -f PhaseEvent.class
@@ -0,0 +1,143 @@
+// RateEvent.java - Flight recorder event of sampling rate  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is a periodic Java Flight Recorder event with
+// the throughput of the sampling loop of TmplEngine: the
+// samples per second, the etaus outputs per second, and
+// the mean number of bits matched per sample queue.
+// The sampling loop does not emit the event.  Every
+// TmplEngine.clockSteps samples it writes the number of
+// samples taken to a volatile field, one write and no
+// lock, or with -p each worker adds to a shared count,
+// and the flight recorder runs a Hook on its own thread
+// once a second, while a recording is running, to read
+// the count and commit the event.  So the event is
+// throttled by the recorder, and the period can be
+// changed in the recording settings, for example
+//    jfr configure template.Throughput#period=10s
+// The rates are over the time since the event before.
+// Each engine adds its own Hook through Phase when its
+// sampling starts with the flight recorder up, and
+// removes it at the end, so two engines in one Java
+// virtual machine each have their own events, told
+// apart by the template size.  With no recording, the
+// hook is never called.  See PhaseEvent.
+//**********************************************************
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+@Name("template.Throughput")
+@Label("Template Throughput")
+@Category("Template Test")
+@Description("Progress of the sampling loop of a template test")
+@Period("1 s")
+public class RateEvent extends Event
+   {
+
+   @Label("Template Size")
+   @Description("Number of bits in the template")
+   public int size;
+
+   @Label("Samples")
+   @Description("Number of samples taken")
+   public long samples;
+
+   @Label("Samples per Second")
+   public double samplesPerSecond;
+
+   @Label("Generator Steps per Second")
+   @Description("Etaus outputs used per second")
+   public double stepsPerSecond;
+
+   @Label("Mean Match Length")
+   @Description("Mean number of bits matched per sample queue")
+   public double meanMatch;
+
+   // add a hook for the engine eng, about to take
+	// samples, to the flight recorder
+	// return the hook, to remove at the end
+
+   static Runnable watch(TmplEngine eng, int size)
+	   {
+		Hook hook;
+		hook = new Hook(eng, size);
+		FlightRecorder.addPeriodicEvent(RateEvent.class, hook);
+		return(hook);
+		} // watch
+
+	//************************************************************
+	// The periodic hook of one engine.  The #samples and
+	// the clock of the last event are used only by the
+	// recorder thread.  The first event of a run is from
+	// the start of the sampling loop.
+	//************************************************************
+
+   private static class Hook implements Runnable
+	   {
+	   private TmplEngine eng;
+	   private int size;
+	   private long lastN;
+	   private long lastT;
+
+		Hook(TmplEngine eng, int size)
+		   {
+			this.eng  = eng;
+			this.size = size;
+			lastN = eng.firstSample();
+			lastT = eng.startTime();
+			} // constructor
+
+	   // commit an event for the engine
+
+	   public void run()
+		   {
+			long n;
+			long now;
+			double secs;
+			RateEvent ev;
+			if (!eng.sampling()) return;
+			n   = eng.progress();
+			now = System.nanoTime();
+			secs = (now - lastT) * 1.0e-9;
+			ev = new RateEvent();
+			ev.size    = size;
+			ev.samples = n;
+			if (secs > 0.0)
+			   {
+				ev.samplesPerSecond = (n - lastN) / secs;
+				ev.stepsPerSecond   = (eng.outputs(n) - eng.outputs(lastN))
+				   / secs;
+				} // if time has passed
+			ev.meanMatch = eng.meanMatch();
+			ev.commit();
+			lastN = n;
+			lastT = now;
+			} // run
+
+		} // class Hook
+
+	} // class RateEvent
@@ -0,0 +1,7 @@
+CC=javac
+
+RateEvent.class:					RateEvent.java
+			$(CC) RateEvent.java
+
+clean:
+			rm -f RateEvent.class
@@ -0,0 +1,502 @@
+// RepeatScan.java - Find a repeat of a window of output  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This program looks for any repeat of a window of w bits
+// anywhere in a stream of bits, from etaus or from a file.
+// The template test only finds a repeat that lines up
+// with its one template.  EtausCycle finds a repeat of
+// the whole state of etaus.  This program finds a repeat
+// of the output, whatever the generator.
+// A rolling hash of the last w bits is kept, one
+// multiply for each bit.  The windows whose hash has its
+// top bits zero are sampled, and their hashes, the
+// fingerprints, go into an FpTable with their positions.
+// The sample depends only on the contents of the window,
+// so when a stretch of the stream repeats, the windows
+// sampled in the first copy are sampled again in the
+// second, and are found in the table.
+// The table has a fixed memory budget.  As it fills, it
+// keeps fewer windows, so a repeat needs to be longer to
+// be found.  A repeat of w + L bits has L + 1 windows in
+// common, and is missed only if none of them is sampled.
+// On a hit, the source is read again up to the earlier
+// window, which is compared bit by bit with the window in
+// hand.  The source read again is kept open at the end of
+// the compare, so the next hit reads on from there, and
+// starts again only for a hit further back.  Then the
+// stream is read twice more, the period apart, to find
+// where the repeat starts.  If the source read again ends
+// too soon, there is no repeat.
+//**********************************************************
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class RepeatScan
+   {
+
+	// #bits read from the source at a time
+   private static final int stageBits = 1 << 16;
+	// most bits in a window, so that the ring of bits
+	// stays well inside an int
+   private static final int maxWindow = 1 << 24;
+	// multiplier of the rolling hash
+   private static final long mult = 0x9e3779b97f4a7c15L;
+
+   private int w;                // #bits in a window
+   private long nbits;           // most bits to scan
+   private FpTable tbl;          // fingerprints of sampled windows
+	// the last rbits bits of the stream, in a ring of
+	// words, enough for a window and one read
+   private long ring[];
+   private int rbits;
+	// hash term of the bit that leaves the window,
+	// for bit zero and bit one
+   private long out0;
+   private long out1;
+	// source to start again, for the compares
+   private Replay again;
+	// source read again by confirm(), or null, and the
+	// position of its next bit
+   private BitSrc cf;
+   private long cfPos;
+
+   // a source of the same bits from the start
+	// Each open() is a new source, which the caller closes.
+
+   public interface Replay
+	   {
+	   public BitSrc open();
+		} // interface Replay
+
+	RepeatScan(int w, long nbits, long budget, Replay again)
+	   {
+		int i;
+		long pw;
+		this.w     = w;
+		this.nbits = nbits;
+		this.again = again;
+		tbl   = new FpTable(budget);
+		rbits = Integer.highestOneBit(w + stageBits) * 2;
+		ring  = new long[rbits >>> 6];
+		// mult^w
+		pw = 1L;
+		for (i=0;i<w;i++)
+		   {
+			pw = pw * mult;
+			} // for each bit in the window
+		out0 = pw;
+		out1 = 2 * pw;
+		} // constructor
+
+   // return bit i of the stream from the ring
+
+   private int ringBit(long i)
+	   {
+		int k;
+		k = (int) (i & (rbits - 1));
+		return((int) (ring[k >>> 6] >>> (k & 63)) & 1);
+		} // ringBit
+
+   // Scan the stream for a repeat of a window.
+	// return the position of the window repeated, and of
+	// its repeat, in rslt[0] and rslt[1], and the number
+	// of bits scanned in rslt[2]
+	// rslt[0] is -1 if there is no repeat.
+
+   public void scan(BitSrc src, long rslt[])
+	   {
+		int k;
+		int got;
+		int base;
+		int n;
+		long i;
+		long h;
+		long p;
+		long wrd;
+		long start;
+		long stage[] = new long[stageBits >>> 6];
+		rslt[0] = -1;
+		h = 0L;
+		i = 0;
+		while (i < nbits)
+		   {
+			n = (int) Math.min((long) stageBits, nbits - i);
+			got = src.nextBits(stage, n);
+			// the reads are whole words until the end
+			base = (int) (i & (rbits - 1)) >>> 6;
+			System.arraycopy(stage, 0, ring, base, (got + 63) >>> 6);
+			for (k=0;k<got;k++)
+			   {
+				wrd = stage[k >>> 6];
+				// roll the window one bit
+				h = h * mult + ((wrd >>> (k & 63)) & 1) + 1;
+				if (i >= w)
+				   {
+					h = h - (ringBit(i - w) == 0 ? out0 : out1);
+					} // if a bit leaves the window
+				i = i + 1;
+				if (i < w || !tbl.keep(h)) continue;
+				start = i - w;
+				p = tbl.find(h);
+				if (p >= 0 && confirm(p, start))
+				   {
+					rslt[0] = p;
+					rslt[1] = start;
+					rslt[2] = i;
+					endConfirm();
+					return;
+					} // if repeat found
+				tbl.put(h, start);
+				} // for each bit read
+			if (got < n) break;
+			} // while bits to scan
+		rslt[2] = i;
+		endConfirm();
+		} // scan
+
+   // return true if the window at p is the same as the
+	// window at start, which is in the ring
+	// The source read again goes on to p, or starts again
+	// if it is past p.
+
+   private boolean confirm(long p, long start)
+	   {
+		int j;
+		int n;
+		int got;
+		long left;
+		long buf[] = new long[stageBits >>> 6];
+		if (cf != null && cfPos > p)
+		   {
+			endConfirm();
+			} // if past the window
+		if (cf == null)
+		   {
+			cf    = again.open();
+			cfPos = 0;
+			} // if no source read again
+		left = p - cfPos;
+		while (left > 0)
+		   {
+			n = (int) Math.min((long) stageBits, left);
+			got = cf.nextBits(buf, n);
+			cfPos = cfPos + got;
+			if (got < n) return(false);
+			left = left - got;
+			} // while bits to skip
+		left = w;
+		while (left > 0)
+		   {
+			n = (int) Math.min((long) stageBits, left);
+			got = cf.nextBits(buf, n);
+			cfPos = cfPos + got;
+			if (got < n) return(false);
+			for (j=0;j<n;j++)
+			   {
+				if ((int) (buf[j >>> 6] >>> (j & 63) & 1)
+				   != ringBit(start + w - left + j)) return(false);
+				} // for each bit read
+			left = left - n;
+			} // while bits of the window
+		return(true);
+		} // confirm
+
+   // close the source read again by confirm(), if any
+
+   private void endConfirm()
+	   {
+		if (cf != null)
+		   {
+			cf.close();
+			cf = null;
+			} // if source open
+		} // endConfirm
+
+   // return the first bit of the stream that the repeat
+	// of period per covers, the least m such that bit i
+	// equals bit i + per for every i from m to p
+	// The stream is read twice, per bits apart.
+	// return -1 if the stream ends before p + per
+
+   public long firstRepeat(long p, long per)
+	   {
+		int j;
+		int n;
+		int got;
+		int gotb;
+		long left;
+		long i;
+		long last;
+		long diff;
+		long a[] = new long[stageBits >>> 6];
+		long b[] = new long[stageBits >>> 6];
+		last = -1;
+		try (BitSrc sa = again.open(); BitSrc sb = again.open())
+		   {
+			left = per;
+			while (left > 0)
+			   {
+				n = (int) Math.min((long) stageBits, left);
+				got = sb.nextBits(b, n);
+				if (got < n) return(-1);
+				left = left - got;
+				} // while bits to skip
+			i = 0;
+			while (i < p)
+			   {
+				n = (int) Math.min((long) stageBits, p - i);
+				got  = sa.nextBits(a, n);
+				gotb = sb.nextBits(b, n);
+				if (got < n || gotb < n) return(-1);
+				for (j=0;j<((n + 63) >>> 6);j++)
+				   {
+					diff = a[j] ^ b[j];
+					if (n - j * 64 < 64)
+					   {
+						diff &= (1L << (n - j * 64)) - 1;
+						} // if last partial word
+					if (diff != 0L)
+					   {
+						last = i + j * 64 + 63
+						   - Long.numberOfLeadingZeros(diff);
+						} // if a bit differs
+					} // for each word
+				i = i + n;
+				} // while bits before p
+			} // try
+		return(last + 1);
+		} // firstRepeat
+
+	// Usage: java RepeatScan [-w window] [-n bits] [-m megabytes]
+	//                        [-s seed1 seed2 seed3] [-r restart]
+	//                        [-b bits] [-f file] [-o order] [-k skip]
+	// -w is the number of bits in a window, 1024 by default,
+	//    and at most 2^24.
+	// -n is the most bits to scan, one billion by default.
+	// -m is the memory budget of the table in megabytes,
+	//    64 by default.
+	// -s gives the three seeds of etaus in hex.  By
+	//    default, the seeds are random.
+	// -r starts etaus again with the same seeds after the
+	//    given number of bits, as in WrapTmpl.  It takes one
+	//    bit from each output, and does not apply to -b 32.
+	// -b is the number of bits taken from each etaus output,
+	//    1 (the default) or 32 for harvest mode.
+	// -f scans the raw bytes of a file instead of etaus.
+	// -o is the order of the bits in each byte of the file,
+	//    msb (the default) or lsb.
+	// -k skips the given number of bytes at the start of
+	//    the file.
+
+	public static void main(String arg[])
+	   {
+		int i;
+		int w = 1024;
+		int bits = 1;
+		boolean usage = false;
+		int parm[] = null;
+		long nbits = 1000000000L;
+		long mb = 64;
+		long restart = 0;
+		long skip = 0;
+		long per;
+		long first;
+		long rslt[] = new long[3];
+		String file = null;
+		String order = "msb";
+		Replay again;
+		RepeatScan scan;
+		for (i=0;i<arg.length;i++)
+		   {
+			if (arg[i].equals("-w") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				w = Integer.parseInt(arg[i]);
+				} // if window
+			else if (arg[i].equals("-n") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				nbits = Long.parseLong(arg[i]);
+				} // else if most bits
+			else if (arg[i].equals("-m") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				mb = Long.parseLong(arg[i]);
+				} // else if memory budget
+			else if (arg[i].equals("-s") && i + 3 < arg.length)
+			   {
+				parm = new int[3];
+				parm[0] = Integer.parseUnsignedInt(arg[i+1], 16);
+				parm[1] = Integer.parseUnsignedInt(arg[i+2], 16);
+				parm[2] = Integer.parseUnsignedInt(arg[i+3], 16);
+				i = i + 3;
+				} // else if seeds
+			else if (arg[i].equals("-r") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				restart = Long.parseLong(arg[i]);
+				} // else if start again
+			else if (arg[i].equals("-b") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				bits = Integer.parseInt(arg[i]);
+				} // else if bits per output
+			else if (arg[i].equals("-f") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				file = arg[i];
+				} // else if input file
+			else if (arg[i].equals("-o") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				order = arg[i];
+				} // else if bit order
+			else if (arg[i].equals("-k") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				skip = Long.parseLong(arg[i]);
+				} // else if bytes to skip
+			else
+			   {
+				usage = true;
+				} // else invalid parameter
+			} // for each parameter
+		if (usage || (bits != 1 && bits != 32) || w < 1 || w > maxWindow
+		   || nbits < 1 || mb < 1 || restart < 0 || skip < 0
+			|| (restart > 0 && bits != 1)
+			|| !(order.equals("msb") || order.equals("lsb")))
+		   {
+			System.out.print("Usage: java RepeatScan ");
+			System.out.println("[-w window] [-n bits] [-m megabytes]");
+			System.out.print("                       ");
+			System.out.println("[-s seed1 seed2 seed3] [-r restart]");
+			System.out.print("                       ");
+			System.out.println("[-b bits] [-f file] [-o order] [-k skip]");
+			return;
+			} // if invalid parameter
+		if (file != null)
+		   {
+			again = fileReplay(file, order.equals("msb"), skip);
+			System.out.println("Input " + file);
+			} // if input file
+		else
+		   {
+			if (parm == null)
+			   {
+				parm = TmplEngine.randomSeeds();
+				} // if random seeds
+			else
+			   {
+				for (i=0;i<3;i++)
+				   {
+					System.out.print("Seed " + (i + 1) + " ");
+					System.out.println(Integer.toHexString(parm[i]));
+					} // for each seed
+				} // else seeds given
+			again = etausReplay(parm, bits, restart);
+			} // else etaus
+		scan = new RepeatScan(w, nbits, mb << 20, again);
+		try (BitSrc src = again.open())
+		   {
+			scan.scan(src, rslt);
+			System.out.println();
+			System.out.printf("Window        %d bits\n", w);
+			System.out.printf("Bits scanned  %d\n", rslt[2]);
+			System.out.printf("Table         %d bytes, 1 in 2^%d windows\n",
+			   scan.tbl.bytes(), scan.tbl.level());
+			if (rslt[0] < 0)
+			   {
+				System.out.println("No repeat found");
+				return;
+				} // if no repeat
+			per   = rslt[1] - rslt[0];
+			first = scan.firstRepeat(rslt[0], per);
+			if (first < 0)
+			   {
+				System.out.println("No repeat found");
+				return;
+				} // if input ended
+			System.out.printf("Repeat        bit %d at bit %d\n",
+			   rslt[0], rslt[1]);
+			System.out.printf("Period        %d bits\n", per);
+			System.out.printf("First repeat  bit %d, a copy of bit %d\n",
+			   first + per, first);
+			} // try
+		catch (UncheckedIOException e)
+		   {
+			System.out.print("RepeatScan: cannot read ");
+			System.out.println(file);
+			} // catch
+		} // main
+
+   // return a replay of etaus from the seeds, one bit or
+	// 32 bits for each output, started again after restart
+	// bits if restart is not zero
+
+   private static Replay etausReplay(int parm[], int bits,
+	   long restart)
+	   {
+		return(new Replay()
+		   {
+			public BitSrc open()
+			   {
+				Etaus et = new Etaus();
+				et.strt(parm);
+				if (restart > 0)
+				   {
+					return(new WrapSrc(et, parm, restart));
+					} // if start again
+				if (bits == 32)
+				   {
+					return(new HarvSrc(et));
+					} // if harvest mode
+				return(new EtausSrc(et));
+				} // open
+			});
+		} // etausReplay
+
+   // return a replay of the file from skip bytes on
+
+   private static Replay fileReplay(String file, boolean msb,
+	   long skip)
+	   {
+		return(new Replay()
+		   {
+			public BitSrc open()
+			   {
+				try
+				   {
+					return(new StreamSrc(FileChannel.open(Paths.get(file),
+					   StandardOpenOption.READ), msb, skip, -1));
+					} // try
+				catch (IOException e)
+				   {
+					throw new UncheckedIOException(e);
+					} // catch
+				} // open
+			});
+		} // fileReplay
+
+	} // class RepeatScan
@@ -0,0 +1,7 @@
+CC=javac
+
+RepeatScan.class:					RepeatScan.java
+			$(CC) RepeatScan.java
+
+clean:
+			rm -f RepeatScan.class
@@ -0,0 +1,47 @@
+// SaveSrc.java - Source of bits that can be saved  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+
+//**********************************************************
+// This interface is a source of bits whose state can be
+// written to a checkpoint and read back, so that a run
+// goes on with the same bits.  See Ckpt.  Template takes
+// -c and -r only with a source that implements it.
+//**********************************************************
+
+import java.nio.ByteBuffer;
+
+public interface SaveSrc extends BitSrc
+   {
+
+   // return the number of bytes written by save()
+
+   public int saveSize();
+
+   // write the state of the source to bb, for a checkpoint
+
+   public void save(ByteBuffer bb);
+
+   // read the state of the source from bb,
+	// as written by save()
+
+   public void load(ByteBuffer bb);
+
+   } // interface SaveSrc
@@ -0,0 +1,7 @@
+CC=javac
+
+SaveSrc.class:					SaveSrc.java
+			$(CC) SaveSrc.java
+
+clean:
+			rm -f SaveSrc.class
@@ -0,0 +1,86 @@
+// ScalarKernel.java - Template match 64 bits at a time  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is the default kernel of the template match.
+// Each step takes 64 bits of the window, which may start
+// at any bit of a word, XORs them with a word of the
+// template, and finds the first mismatch with
+// numberOfTrailingZeros.  VecKernel uses it for the parts
+// of a window that do not fill a vector.
+//**********************************************************
+
+public class ScalarKernel implements MatchKernel
+   {
+
+   // return 64 bits of the ring buf[] starting at bit pos
+	// The high bits come from the next word in the ring.
+	// When pos is on a word boundary, the double shift
+	// of the next word yields zero.
+
+   public static long chunk(long buf[], int pos)
+	   {
+		int wrd;
+		int nxt;
+		int shft;
+		wrd  = pos >>> 6;
+		shft = pos & 63;
+		nxt  = wrd + 1;
+		if (nxt == buf.length) nxt = 0;
+		return((buf[wrd] >>> shft) | ((buf[nxt] << 1) << (63 - shft)));
+		} // chunk
+
+   // compare from bit tally of the window and the
+	// template on, 64 bits at a time
+	// Bits past len are forced to mismatch, so the count
+	// never exceeds len.
+
+   public static int matchFrom(long buf[], int pos, long tmpl[],
+	   int len, int tally)
+	   {
+		int cap;
+		long diff;
+		cap = buf.length << 6;
+		pos = pos + tally;
+		if (pos >= cap) pos -= cap;
+		while (tally < len)
+		   {
+			diff = chunk(buf, pos) ^ tmpl[tally >>> 6];
+			if (len - tally < 64)
+			   {
+				diff |= -1L << (len - tally);
+				} // if last partial word
+			if (diff != 0L)
+			   {
+				return(tally + Long.numberOfTrailingZeros(diff));
+				} // if a mismatch in this word
+			tally = tally + 64;
+			pos   = pos + 64;
+			if (pos >= cap) pos -= cap;
+			} // for each word in the window
+		return(len);
+		} // matchFrom
+
+   public int match(long buf[], int pos, long tmpl[], int len)
+	   {
+		return(matchFrom(buf, pos, tmpl, len, 0));
+		} // match
+
+	} // class ScalarKernel
@@ -0,0 +1,7 @@
+CC=javac
+
+ScalarKernel.class:					ScalarKernel.java
+			$(CC) ScalarKernel.java
+
+clean:
+			rm -f ScalarKernel.class
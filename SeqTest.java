@@ -0,0 +1,145 @@
+// SeqTest.java - Sequential early stop of the template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class decides when a template test may stop early,
+// with the error rates still under control.
+// The chi square is looked at a number of times, at
+// equal steps through the samples, as in a group
+// sequential design.  At look k, a fraction t of the
+// samples has been taken.
+// Fail - the generator fails at look k if the p-value of
+//        the chi square is at most a(t) - a(t'), where t'
+//        is the fraction at the look before, and
+//        a(t) = alpha * t^3.  The sum of the steps is alpha,
+//        so a good generator fails at some look with
+//        probability at most alpha.
+// Pass - the generator passes at look k if the chi
+//        square is so small, that a generator with an
+//        effect of size w would give a chi square that
+//        small with probability at most b(t) - b(t'),
+//        b(t) = beta * t^3.  So a generator with an effect
+//        of size w or more passes with probability at most
+//        beta.
+// The effect size w is Cohen's w, the square root of
+// the sum of (p1 - p0)^2 / p0 over the classes.  For n
+// sample queues, the chi square of such a generator is
+// noncentral, with noncentrality n * w^2.
+// The cubic spending spends little of alpha and beta at
+// the early looks, so the final look is close to the
+// fixed length test.  A bad generator, with an effect
+// far larger than w, fails at an early look.
+// The bounds add the error of each look, and do not
+// count on the looks being independent, so the error
+// rates hold, at the cost of some power.
+//**********************************************************
+
+public class SeqTest
+   {
+
+   public static final int going = 0;   // no decision yet
+   public static final int fail  = 1;   // generator fails
+   public static final int pass  = 2;   // generator passes
+
+   private double alpha;    // chance of failing a good generator
+   private double beta;     // chance of passing a bad generator
+   private double w;        // effect size of a bad generator
+   private int looks;       // #looks at the chi square
+   private long samples;    // #samples in the whole test
+   private double spent;    // fraction t of the look before
+
+	SeqTest(double alpha, double beta, double w, int looks,
+	   long samples)
+	   {
+		this.alpha   = alpha;
+		this.beta    = beta;
+		this.w       = w;
+		this.looks   = looks;
+		this.samples = samples;
+		spent = 0.0;
+		} // constructor
+
+   // return the sample # of the first look after done
+	// samples, or Long.MAX_VALUE after the last look
+	// The last look is at the end of the test.
+
+   public long nextLook(long done)
+	   {
+		long k;
+		long step;
+		step = Math.max(1L, samples / looks);
+		k = done / step + 1;
+		if (k >= looks) return(Long.MAX_VALUE);
+		return(k * step);
+		} // nextLook
+
+   // Look at the chi square after done samples, with n
+	// sample queues tallied.
+	// return fail, pass or going
+
+   public int look(long done, long n, double chisq, int df)
+	   {
+		double t;
+		double da;
+		double db;
+		double lambda;
+		t = Math.min(1.0, (double) done / (double) samples);
+		if (t <= spent) return(going);
+		da = alpha * (t * t * t - spent * spent * spent);
+		db = beta  * (t * t * t - spent * spent * spent);
+		spent = t;
+		if (df < 1) return(going);
+		if (ChiDist.pvalue(chisq, df) <= da)
+		   {
+			return(fail);
+			} // if chi square too large
+		lambda = n * w * w;
+		if (ChiDist.ncdf(chisq, df, lambda) <= db)
+		   {
+			return(pass);
+			} // if chi square too small for a bad generator
+		return(going);
+		} // look
+
+   // print the decision
+
+   public void print(int verdict, long done)
+	   {
+		System.out.println();
+		System.out.print("Sequential test: ");
+		if (verdict == fail)
+		   {
+			System.out.print("fail");
+			} // if fail
+		else if (verdict == pass)
+		   {
+			System.out.print("pass");
+			} // else if pass
+		else
+		   {
+			System.out.print("no decision");
+			} // else no decision
+		System.out.print(" after " + done + " samples");
+		System.out.printf(" of %d\n", samples);
+		System.out.printf("alpha %.4g  beta %.4g  w %.4g  looks %d\n",
+		   alpha, beta, w, looks);
+		} // print
+
+   } // class SeqTest
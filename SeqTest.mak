@@ -0,0 +1,7 @@
+CC=javac
+
+SeqTest.class:					SeqTest.java
+			$(CC) SeqTest.java
+
+clean:
+			rm -f SeqTest.class
@@ -0,0 +1,85 @@
+// SinSrc.java - Sine distorted bit source from etaus  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+
+//**********************************************************
+// This class is the source of bad data for SinTempl.
+// A random number x is generated from zero to Pi/2.
+// y = sin(x)
+// The number y is a random number from zero to one,
+// but y does not have a uniform distribution.
+// The bit is one if y >= 0.5.
+//**********************************************************
+
+import java.nio.ByteBuffer;
+
+public class SinSrc implements SplitSrc, SaveSrc
+   {
+
+   private Etaus et;        // etaus class instance
+	private double pi = Math.PI;
+	private double halfpi = pi * 0.5;
+
+	SinSrc(Etaus et)
+	   {
+		this.et = et;
+		} // constructor
+
+   public int nextBit()
+	   {
+		double x;
+		double y;
+		// x is a real number from zero to Pi/2 radians
+		x = et.genunif() * halfpi;
+		// y is a real number from zero to one
+		// y does not have a uniform distribution
+		y = Math.sin(x);
+		if (y >= 0.5)
+		   {
+			return(1);
+			} // if y >= 0.5
+		return(0);
+		} // nextBit
+
+   public BitSrc sub(int seed[], long base)
+	   {
+		Etaus sub = new Etaus();
+		sub.strtAt(seed, base);
+		return(new SinSrc(sub));
+		} // sub
+
+   // the state of the source is the state of etaus
+
+   public int saveSize()
+	   {
+		return(Etaus.saveSize);
+		} // saveSize
+
+   public void save(ByteBuffer bb)
+	   {
+		et.save(bb);
+		} // save
+
+   public void load(ByteBuffer bb)
+	   {
+		et.load(bb);
+		} // load
+
+   } // class SinSrc
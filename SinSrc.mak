@@ -0,0 +1,7 @@
+CC=javac
+
+SinSrc.class:					SinSrc.java
+			$(CC) SinSrc.java
+
+clean:
+			rm -f SinSrc.class
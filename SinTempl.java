@@ -47,6 +47,12 @@
 // After one million samples have been made, a chi square
 // test is performed on the numbers of matches found
 // between the actual matches and the expected matches.
+// The test itself is in TmplEngine.  This program gives
+// the engine a uniform source of bits for the template
+// and the first sample queue, and SinSrc for the samples.
+// The samples distorted by the sine function need a
+// whole uniform number for each bit, so they do not
+// use harvest mode.
 //**********************************************************
 
 import java.lang.*;
@@ -54,391 +60,95 @@ import java.lang.*;
 public class SinTempl
    {
 
-   private int size      = 1024;   // size of template and queue
-   private int sizePlus  = size + 1;  // total# of conditions
-   private int samples   = 1000000;   // #samples in test
-   private double dblSamples = (double) samples;
-	private double pi = Math.PI;
-	private double halfpi = pi * 0.5;
-   private double prob   = 0.5;      // probability of no match
-	// currProb[i+1] = currProb[i] * prob;
-   private double currProb = prob;
-   // indexed by number of nodes in the sample queues
-   // actually matched
-   // tally of sample queues actually matched
-   private double actual[] = new double[sizePlus];
-   // also indexed by number of nodes in the sample queues
-   // actually matched
-   // expected number of nodes in the sample queues to be matched
-   private double expected[] = new double[sizePlus];
-	//************************************************************
-	// The following are the head and tail nodes for
-	// the template and the actual queue.
-	//************************************************************
-   private Node tmplHead = new Node();
-   private Node tmplTail = new Node();
-   private Node actHead  = new Node();
-   private Node actTail  = new Node();
-   // random number generator internal state
-   private Etaus et = new Etaus();    // etaus class instance
+	// Usage: java SinTempl [-b bits] [-a alpha] [-d w] [-g looks]
+	// -b is the number of uniform bits taken from each
+	//    etaus output for the template and the first sample
+	//    queue, 1 (the default) or 32 for harvest mode.
+	//    The samples after them take a whole output for
+	//    each bit either way, so -b does not change the
+	//    stream being tested.
+	// -a stops the test early, as soon as a sequential test
+	//    decides.  See Template and SeqTest.
+	// -d is the effect size w, 0.01 by default.
+	// -g is the number of looks at the chi square,
+	//    20 by default.
 
-	SinTempl()
+	public static void main(String arg[])
 	   {
 		int i;
-		int prm;
-		int parm[] = new int[8];
-		double frac;
-		//********************************************************
-		// initialize actual array
-		//********************************************************
-		for (i=0;i<sizePlus;i++)
+		int bits = 1;
+		boolean usage = false;
+		int status;
+		int looks = 20;
+		double alpha = 0.0;
+		double effect = 0.01;
+		int parm[];
+		Etaus et;
+		BitSrc src;
+		for (i=0;i<arg.length;i++)
+		   {
+			if (arg[i].equals("-b") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				bits = Integer.parseInt(arg[i]);
+				} // if bits per output
+			else if (arg[i].equals("-a") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				alpha = Double.parseDouble(arg[i]);
+				} // else if sequential test
+			else if (arg[i].equals("-d") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				effect = Double.parseDouble(arg[i]);
+				} // else if effect size
+			else if (arg[i].equals("-g") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				looks = Integer.parseInt(arg[i]);
+				} // else if number of looks
+			else
+			   {
+				usage = true;
+				} // else invalid parameter
+			} // for each parameter
+		if (usage || (bits != 1 && bits != 32) || !(alpha >= 0.0 && alpha < 1.0)
+		   || !(effect > 0.0) || looks < 1)
 		   {
-			actual[i] = 0.0;
-			} // for each level of compare
+			System.out.print("Usage: java SinTempl [-b bits] ");
+			System.out.println("[-a alpha] [-d w] [-g looks]");
+			System.out.print("-b 32 harvests the template and the ");
+			System.out.println("first sample queue only");
+			return;
+			} // if invalid parameter
 		//********************************************************
 		// Initialize etaus random number generator
+		// to three random seeds.
 		//********************************************************
-		frac = Math.random();
-		prm = (int) (frac * 2000000000.0);
-		parm[0] = prm;
-		System.out.print("Seed 1 ");
-		System.out.println(Integer.toHexString(prm));
-		frac = Math.random();
-		prm = (int) (frac * 2000000000.0);
-		parm[1] = prm;
-		System.out.print("Seed 2 ");
-		System.out.println(Integer.toHexString(prm));
-		frac = Math.random();
-		prm = (int) (frac * 2000000000.0);
-		parm[2] = prm;
-		System.out.print("Seed 3 ");
-		System.out.println(Integer.toHexString(prm));
-      // Initialize random number generator
-      // to three random seeds.
+		parm = TmplEngine.randomSeeds();
+		et = new Etaus();
 		et.strt(parm);
-		//********************************************************
-		// Initialize template and actual, head and tail
-		//********************************************************
-		tmplHead.prev = tmplTail;
-		tmplTail.next = tmplHead;
-		tmplHead.key  = 99999;
-		tmplTail.key  = 11111;
-		actHead.prev  = actTail;
-		actTail.next  = actHead;
-		actHead.key   = 88888;
-		actTail.key   = 22222;
-		//********************************************************
-      // Calculate array of expected matches
-		// currProb is initialized to prob.
-		//********************************************************
-		for (i=0;i<sizePlus;i++)
-		   {
-		   expected[i] = currProb * dblSamples;
-			currProb *= prob;
-			} // for each expected #matches
-		} // constructor
-
-   private class Node
-	   {
-		private Node next;
-		private Node prev;
-		private int key;
-		} // class Node
-
-	// add a new node to the head of the template queue
-
-   public void pushTemplate(int key)
-	   {
-		// most recently added node is called last
-		// x is the new node being added
-		Node last = tmplHead.prev;
-		Node x = new Node();
-		x.next = tmplHead;
-		x.prev = last;
-		tmplHead.prev = x;
-		last.next = x;
-		x.key = key;
-		} // pushTemplate
-
-   // add a new node to the head of the sample queue
-	
-   public void pushActual(int key)
-	   {
-		// most recently added node is called last
-		// x is the new node being added
-		Node last = actHead.prev;
-		Node x = new Node();
-		x.next = actHead;
-		x.prev = last;
-		actHead.prev = x;
-		last.next = x;
-		x.key = key;
-		} // pushActual
-
-   // remove the least recently added node
-	// from the tail of the template queue
-
-   public void popTemplate()
-	   {
-		// least recently added node is
-		// called the first node
-		Node first = tmplTail.next;
-		tmplTail.next = first.next;
-		first.prev = tmplTail;
-		} // popTemplate
-
-   // remove the least recently added node
-	// from the tail of the sample queue
-
-   public void popActual()
-	   {
-		// least recently added node is
-		// called the first node
-		Node first = actTail.next;
-		actTail.next = first.next;
-		first.prev = actTail;
-		} // popActual
-
-   // Create a random template of zeros and ones.
-	// The template is a doubly linked list.
-
-   private void bldTemplate()
-	   {
-		int i;
-		for (i=0;i<size;i++)
-		   {
-			int num;
-			num = et.genbit();   // generate a zero or a one
-			pushTemplate(num);   // add to end of linked list
-			} // for each node in the template queue
-		} // bldTemplate
-
-   // for debugging, print the template queue
-
-   private void showTemplate()
-	   {
-		int i;
-		System.out.println("showTemplate");
-		Node curr = new Node();
-		curr = tmplTail.next;
-		if (curr == tmplHead)
+		if (bits == 32)
 		   {
-			System.out.print("showTemplate: ");
-			System.out.println("empty queue");
-			return;
-			} // if curr == tmplHead
-		i = 0;
-		while (curr != tmplHead)
-		   {
-			i = i + 1;
-			System.out.println(i + ". " + curr.key);
-			curr = curr.next;
-			} // for each node in template
-		} // showTemplate
-
-   // Create a random sample queue of zeros and ones.
-	// The sample queue is a doubly linked list.
-
-   private void bldActual()
-	   {
-		int i;
-		for (i=0;i<size;i++)
-		   {
-			int num;
-			num = et.genbit();   // generate a zero or a one
-			pushActual(num);     // add to end of linked list
-			} // for each node in the template queue
-		} // bldActual
-
-   // for debugging, print the sample queue
-
-   private void showActual()
-	   {
-		int i;
-		System.out.println("showActual");
-		Node curr = new Node();
-		curr = actTail.next;
-		if (curr == actHead)
-		   {
-			System.out.print("showActual: ");
-			System.out.println("empty queue");
-			return;
-			} // if curr == actHead
-		i = 0;
-		while (curr != actHead)
-		   {
-			i = i + 1;
-			System.out.println(i + ". " + curr.key);
-			curr = curr.next;
-			} // for each node in template
-		} // showActual
-
-   // count the number of matches, left to right, of
-	// the sample queue against the template queue
-	// return the actual number of matches in the
-	// least recent tail of the queue
-   // If the number of matches, left to right,
-   // is 1024, then a wrap-around error is generated.
-
-   public int match()
-		{
-		int tally;    // number of continuous matches left to right
-		// the current position in each queue.
-		Node currActual   = new Node();
-		Node currTemplate = new Node();
-		// match from tail to head
-		currActual = actTail.next;
-		if (currActual == actHead)
-		   {
-			System.out.print("match: ");
-			System.out.println("empty actual queue");
-			return(0);
-			} // if currActual == actHead
-		currTemplate = tmplTail.next;
-		if (currTemplate == tmplHead)
+			src = new HarvSrc(et);
+			} // if harvest mode
+		else
 		   {
-			System.out.print("match: ");
-			System.out.println("empty template queue");
-			return(0);
-			} // if currTemplate == tmplHead
-		tally = 0;
-		while (currActual != actHead)
+			src = new EtausSrc(et);
+			} // else one bit per output
+		TmplEngine tmpl = new TmplEngine(1024, 1000000L, 0.5);
+		tmpl.bldTemplate(src);
+		tmpl.bldActual(src);
+		if (alpha > 0.0)
 		   {
-			if (currTemplate == tmplHead)
-			   {
-				System.out.print("match: ");
-				System.out.println("template node missing");
-				return(0);
-				} // if no corresponding template node
-         // comparison ends at the first non-match
-			if (currActual.key != currTemplate.key)
-			   {
-				break;
-				} // if node does not match
-         tally = tally + 1;   // #nodes matched
-			currActual   = currActual.next;
-			currTemplate = currTemplate.next;
-			} // for each actual node
-      if (tally >= size)
-         {
-         System.out.print("match: ");
-         System.out.println("wrap-around error");
-         } // if wrap-around error
-		return(tally);   // #matches left to right
-	   } // match
-
-   // generate one million rolling sample queues.
-	// pop the least recent sample
-	// push the newest sample
-	// match the new queue
-   // return zero if no wrap-around error
-   // return one  if    wrap-around error
-
-   public int takeSamples()
-	   {
-		int i;
-		int num;
-		int count = 0;
-      int status;
-		double x;
-		double y;
-		for (i=0;i<samples;i++)
-		   {
-		   popActual();
-			// x is a real number from zero to Pi/2 radians
-			x = et.genunif() * halfpi;
-			// y is a real number from zero to one
-			// y does not have a uniform distribution
-			y = Math.sin(x);
-			if (y >= 0.5)
-			   {
-				num = 1;
-				} // if y >= 0.5
-			else
-			   {
-				num = 0;
-				} // else y < 0.5
-		   pushActual(num);
-		   count = match();
-         if (count >= size)
-            {
-            System.out.print("Sample # ");
-            System.out.println(i + 1);
-            break;
-            } // if wrap-around error
-		   actual[count] += 1.0;
-			} // for each sample queue
-      status = 0;
-      if (count >= size)
-         {
-         status = 1;
-         } // if wrap-around error
-      return(status);
-		} // takeSamples
-
-   // Print the heading on the chi square report.
-	// The first column is the # of matches
-
-   public void printHeading()
-	   {
-		System.out.println();
-		System.out.print("            ");
-		System.out.println("      Template Test with Sine");
-		System.out.print("            ");
-		System.out.println("   etaus Random Number Generator");
-		System.out.println();
-		System.out.print("Matches  ");
-		System.out.print("  Actual      ");
-		System.out.print("  Expected  ");
-		System.out.print("  Difference    ");
-		System.out.println("Chi Square");
-		} // printHeading
-
-   // Calculate the chi square of actual nodes matched
-
-   public void calcChisq()
-	   {
-		int i;
-		double df;          // degrees of freedom
-		double chisq;       // chi square statistic
-		double diff;        // actual - expected
-		double diffsq;      // difference squared
-		// initialize totals
-		chisq = 0.0;
-		df    = 0.0;
-		// a valid chi square test has ten or more
-		// expected tallies
-		i = 0;
-		while (expected[i] >= 10.0)
-		   {
-			diff = actual[i] - expected[i];
-			diffsq = diff * diff;
-			chisq = chisq + (diffsq / expected[i]);
-			System.out.printf("%5d  ", i);
-			System.out.printf("%10.0f  ", actual[i]);
-			System.out.printf("%14.4f  ", expected[i]);
-			System.out.printf("%12.4f  ", diff);
-			System.out.printf("%10.4f\n", chisq);
-			df = df + 1.0;
-			i = i + 1;
-			} // for each expected >= 10.0
-		df = df - 1.0;
-		System.out.println();
-		System.out.printf("Chi square %10.4f\n", chisq);
-		System.out.printf("Degrees of freedom %4.0f\n", df);
-		} // calcChisq
-
-	public static void main(String arg[])
-	   {
-		int num;
-		int status;
-		SinTempl tmpl = new SinTempl();
-		tmpl.bldTemplate();
-		tmpl.bldActual();
-		status = tmpl.takeSamples();
+			tmpl.setSeqTest(new SeqTest(alpha, alpha, effect, looks,
+			   1000000L));
+			} // if sequential test
+		status = tmpl.takeSamples(new SinSrc(et));
 		if (status == 0)
 		   {
-		   tmpl.printHeading();
+		   tmpl.printHeading("      Template Test with Sine",
+			   "   etaus Random Number Generator");
 		   tmpl.calcChisq();
 			} // if no wrap-around error
 		} // main
@@ -0,0 +1,40 @@
+// SplitSrc.java - Source of bits that can be split  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+
+//**********************************************************
+// This interface is a source of bits that can be split
+// into substreams, one for each worker of the parallel
+// mode of the engine, TmplEngine.takeSamplesPar() and
+// takeSamplesMap().  Template takes -p only with a
+// source that implements it.
+//**********************************************************
+
+public interface SplitSrc extends BitSrc
+   {
+
+   // return a new source of the same kind, that takes
+	// its bits from the etaus substream strtAt(seed, base)
+	// For MappedSrc, base is the first bit of the input,
+	// and the seeds are not used.
+
+   public BitSrc sub(int seed[], long base);
+
+   } // interface SplitSrc
@@ -0,0 +1,7 @@
+CC=javac
+
+SplitSrc.class:					SplitSrc.java
+			$(CC) SplitSrc.java
+
+clean:
+			rm -f SplitSrc.class
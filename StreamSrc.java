@@ -0,0 +1,223 @@
+// StreamSrc.java - Bit source from a file or stdin  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is a source of bits from an external stream
+// of random data, such as a dump of a hardware entropy
+// source or of another generator, in a file or on stdin.
+// The bytes are read through a large direct buffer, and
+// never all at once, so the input may be larger than
+// memory.
+// Eight bytes at a time are taken from the buffer as one
+// 64-bit word, and the bits are shifted out of the word.
+// The byte order of the word is chosen so that the bits
+// come out in stream order.
+// msb first - bit 7 of each byte is the first bit.
+//             The word is big endian, and the bits are
+//             shifted out of the top of the word.
+// lsb first - bit 0 of each byte is the first bit.
+//             The word is little endian, and the bits are
+//             shifted out of the bottom of the word.
+// skip is the number of bytes skipped at the start of
+// the input, and limit is the most bytes read after that,
+// or -1 to read to the end.
+// At the end of the input, nextBit() returns -1.
+//**********************************************************
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+public class StreamSrc implements BitSrc
+   {
+
+	// size of the read buffer in bytes
+   private static final int bufsz = 1 << 20;
+
+   private ReadableByteChannel ch;   // input file or stdin
+   private ByteBuffer buf;           // bytes read, not yet used
+   private boolean msbFirst;         // bit order in each byte
+   private long left;                // bytes left before the limit
+   private boolean eof;              // no more bytes to read
+   private long word;                // bits not yet used
+   private int nbits;                // #bits left in word
+
+	StreamSrc(ReadableByteChannel ch, boolean msbFirst,
+	   long skip, long limit) throws IOException
+	   {
+		int n;
+		this.ch       = ch;
+		this.msbFirst = msbFirst;
+		buf = ByteBuffer.allocateDirect(bufsz);
+		if (msbFirst)
+		   {
+			buf.order(ByteOrder.BIG_ENDIAN);
+			} // if msb first
+		else
+		   {
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			} // else lsb first
+		left = Long.MAX_VALUE;
+		if (limit >= 0)
+		   {
+			left = limit;
+			} // if limit
+		eof   = false;
+		word  = 0;
+		nbits = 0;
+		//********************************************************
+		// Skip the first bytes.  A file is positioned past
+		// them.  Stdin is read, and the bytes are dropped.
+		//********************************************************
+		if (ch instanceof FileChannel)
+		   {
+			((FileChannel) ch).position(skip);
+			} // if file
+		else
+		   {
+			while (skip > 0)
+			   {
+				buf.clear();
+				if (skip < bufsz)
+				   {
+					buf.limit((int) skip);
+					} // if last part
+				n = ch.read(buf);
+				if (n < 0) break;
+				skip = skip - n;
+				} // while bytes to skip
+			} // else stdin
+		// the buffer starts empty
+		buf.clear();
+		buf.limit(0);
+		} // constructor
+
+   // Move the bytes left in the buffer to the front,
+	// and read until the buffer is full, or until the end
+	// of the input or the limit.
+
+   private void fill()
+	   {
+		int n;
+		buf.compact();
+		try
+		   {
+			while (buf.hasRemaining() && left > 0)
+			   {
+				if (buf.remaining() > left)
+				   {
+					buf.limit(buf.position() + (int) left);
+					} // if near the limit
+				n = ch.read(buf);
+				if (n < 0)
+				   {
+					eof = true;
+					break;
+					} // if end of input
+				left = left - n;
+				} // while room in buffer
+			} // try
+		catch (IOException e)
+		   {
+			throw new UncheckedIOException(e);
+			} // catch
+		if (left == 0)
+		   {
+			eof = true;
+			} // if limit reached
+		buf.flip();
+		} // fill
+
+   // Take the next word of bits from the buffer.
+	// Near the end of the input, take one byte at a time.
+	// return false at the end of the input
+
+   private boolean nextWord()
+	   {
+		int b;
+		if (buf.remaining() < 8 && !eof)
+		   {
+			fill();
+			} // if buffer nearly empty
+		if (buf.remaining() >= 8)
+		   {
+			word  = buf.getLong();
+			nbits = 64;
+			return(true);
+			} // if whole word
+		if (buf.hasRemaining())
+		   {
+			b = buf.get() & 0xff;
+			if (msbFirst)
+			   {
+				word = (long) b << 56;
+				} // if msb first
+			else
+			   {
+				word = (long) b;
+				} // else lsb first
+			nbits = 8;
+			return(true);
+			} // if one byte
+		return(false);
+		} // nextWord
+
+   // return the next bit, zero or one
+	// return -1 at the end of the input
+
+   public int nextBit()
+	   {
+		int bit;
+		if (nbits == 0 && !nextWord())
+		   {
+			return(-1);
+			} // if end of input
+		nbits = nbits - 1;
+		if (msbFirst)
+		   {
+			bit = (int) (word >>> 63);
+			word = word << 1;
+			} // if msb first
+		else
+		   {
+			bit = (int) word & 1;
+			word = word >>> 1;
+			} // else lsb first
+		return(bit);
+		} // nextBit
+
+   // close the input
+
+   public void close()
+	   {
+		try
+		   {
+			ch.close();
+			} // try
+		catch (IOException e)
+		   {
+			throw new UncheckedIOException(e);
+			} // catch
+		} // close
+
+   } // class StreamSrc
@@ -0,0 +1,7 @@
+CC=javac
+
+StreamSrc.class:					StreamSrc.java
+			$(CC) StreamSrc.java
+
+clean:
+			rm -f StreamSrc.class
@@ -37,383 +37,759 @@
 // After one million samples have been made, a chi square
 // test is performed on the numbers of matches found
 // between the actual matches and the expected matches.
+// The test itself is in TmplEngine.  This program gives
+// the engine a uniform source of bits from etaus, one bit
+// per output, or 32 bits per output in harvest mode.
+// With -f, the samples come from a file or stdin instead,
+// and the template still comes from etaus.
+// With -c, a long run writes checkpoints, and with -r, a
+// run that stopped goes on from its last checkpoint.
+// With -K, the samples are matched against a bank of
+// templates in one pass.  See TmplBank.
+// With -S, the sample windows start stride bits apart,
+// and with -B, the occurrences of the template in each
+// block are counted.  See TmplScan.
 //**********************************************************
 
 import java.lang.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 public class Template
    {
 
-   private int size      = 1024;   // size of template and queue
-   private int sizePlus  = size + 1;  // total# of conditions
-   private int samples   = 1000000;   // #samples in test
-   private double dblSamples = (double) samples;
-   private double prob   = 0.5;      // probability of no match
-	// currProb[i+1] = currProb[i] * prob;
-   private double currProb = prob;
-	// indexed by number of nodes in the sample queues
-	// actually matched
-  	// tally of sample queues actually matched
-   private double actual[] = new double[sizePlus];
-	// also indexed by number of nodes in the sample queues
-	// actually matched
-	// expected number of nodes in the sample queues to be matched
-   private double expected[] = new double[sizePlus];
-	//************************************************************
-	// The following are the head and tail nodes for
-	// the template and the actual queue.
-	//************************************************************
-   private Node tmplHead = new Node();
-   private Node tmplTail = new Node();
-   private Node actHead  = new Node();
-   private Node actTail  = new Node();
-	// random number generator internal state
-   private Etaus et = new Etaus();    // etaus class instance
+	// Usage: java Template [-s size] [-n samples] [-q prob]
+	//                      [-p workers] [-v] [-b bits]
+	//                      [-f file] [-o order] [-k skip] [-l limit]
+	//                      [-c ckpt] [-e every] [-r ckpt]
+	//                      [-w file] [-m samples] [-t seconds]
+	//                      [-a alpha] [-d w] [-g looks]
+	//                      [-K templates] [-H file]
+	//                      [-S stride] [-B block] [-x kernel] [-j]
+	// -s is the number of bits in the template, 1024 by default.
+	// -n is the number of samples, one million by default.
+	// -q is the probability of no match, 0.5 by default.
+	// -p takes the samples on the given number of workers.
+	//    Zero workers means one worker for each core.
+	// -v prints the throughput of each worker.
+	// -b is the number of bits taken from each etaus output,
+	//    1 (the default) or 32 for harvest mode.
+	// -f takes the samples from the raw bytes of a file,
+	//    or from stdin if the file is -.  By default, the
+	//    test runs to the end of the input.
+	// -o is the order of the bits in each byte of the file,
+	//    msb (the default) for bit 7 first, or lsb.
+	// -k skips the given number of bytes at the start of
+	//    the file.
+	// -l reads at most the given number of bytes of the file,
+	//    after the skipped bytes.
+	// -p with -f maps the file into memory, and scans parts
+	//    of it on the given number of workers.  The result
+	//    is the same as without -p.  It does not apply
+	//    to stdin.
+	// -c writes a checkpoint to the given file while taking
+	//    the samples.
+	// -e is the number of samples between checkpoints,
+	//    100 million by default.
+	// -r goes on with the run saved in the given checkpoint.
+	//    The template size, samples, probability and bits
+	//    are those of the run saved.  With -c, the run
+	//    goes on writing checkpoints.
+	// -c and -r apply to the samples from etaus on one
+	//    thread, not to -p or -f.
+	// -w writes an interim chi square report to the given
+	//    file while taking the samples.
+	// -m is the number of samples between reports.
+	// -t is the number of seconds between reports,
+	//    10 by default.  -m takes the place of -t.
+	// -w does not apply to -p.
+	// -a stops the test early, as soon as a sequential test
+	//    decides.  alpha is the chance of failing a good
+	//    generator, and also the chance of passing a
+	//    generator with an effect of size w.  See SeqTest.
+	// -d is the effect size w, 0.01 by default.
+	// -g is the number of looks at the chi square,
+	//    20 by default.
+	// -a does not apply to -p or -r.  With -f, it needs -n.
+	// -K matches each sample queue against the given number
+	//    of templates, made one after the other from etaus,
+	//    and reports the aggregate chi square of the
+	//    templates.
+	// -H writes the tally and the chi square of each
+	//    template to the given file.
+	// -K does not apply to -p, -c, -r, -w or -a.
+	// -S starts each sample window the given number of bits
+	//    after the one before it.  Zero is the template
+	//    size, so the windows do not overlap.  -n is the
+	//    number of windows.
+	// -B counts the occurrences of the template in each
+	//    block of the given number of bits, for a short
+	//    template, such as -s 9 -B 1032.  -n is the number
+	//    of blocks.  The bits are uniform, and -q does not
+	//    apply.
+	// -S and -B do not apply to -p, -c, -r, -w, -a or -K.
+	// -x is the kernel of the template match, scalar (the
+	//    default) or vector.  The vector kernel needs
+	//    java --add-modules jdk.incubator.vector, and
+	//    vectors of 256 bits or more.  Without them, the
+	//    test runs with the scalar kernel.  See VecKernel.
+	// -j registers the MBean template:type=TmplStats, with
+	//    the live progress and interim chi square of the
+	//    test, for JMX clients.  See TmplStats.
+	// -j does not apply to -K, -S or -B.
+	// -H applies only to -K, and -v only to -p.
+	// Options that do not go together print the usage.
 
-	Template()
+	public static void main(String arg[])
 	   {
 		int i;
-		int prm;
-		int parm[] = new int[8];
-		double frac;
-		//********************************************************
-		// initialize actual array
-		//********************************************************
-		for (i=0;i<sizePlus;i++)
+		int status;
+		int workers = -1;
+		int bits = 1;
+		int size = 1024;
+		long samples = 1000000L;
+		double prob = 0.5;
+		boolean report = false;
+		boolean nset = false;
+		String file = null;
+		String source = "   etaus Random Number Generator";
+		String order = "msb";
+		long skip = 0;
+		long limit = -1;
+		long every = 100000000L;
+		String ckfile = null;
+		String resume = null;
+		Ckpt ckpt = null;
+		String rptfile = null;
+		long rptSamples = 0;
+		double rptSecs = 10.0;
+		ChiRpt rpt = null;
+		double alpha = 0.0;
+		double effect = 0.01;
+		int looks = 20;
+		int bank = 0;
+		String histfile = null;
+		int stride = -1;
+		int block = 0;
+		String kernel = "scalar";
+		boolean jmx = false;
+		boolean usage = false;
+		String msg;
+		ByteBuffer bb;
+		TmplEngine tmpl;
+		int parm[] = null;
+		Etaus et;
+		BitSrc src;
+		StreamSrc data;
+		ReadableByteChannel ch;
+		FileChannel fc;
+		long nbytes;
+		for (i=0;i<arg.length;i++)
 		   {
-			actual[i] = 0.0;
-			} // for each level of compare
-		//********************************************************
-		// Initialize etaus random number generator
-		//********************************************************
-		frac = Math.random();
-		prm = (int) (frac * 2000000000.0);
-		parm[0] = prm;
-		System.out.print("Seed 1 ");
-		System.out.println(Integer.toHexString(prm));
-		frac = Math.random();
-		prm = (int) (frac * 2000000000.0);
-		parm[1] = prm;
-		System.out.print("Seed 2 ");
-		System.out.println(Integer.toHexString(prm));
-		frac = Math.random();
-		prm = (int) (frac * 2000000000.0);
-		parm[2] = prm;
-		System.out.print("Seed 3 ");
-		System.out.println(Integer.toHexString(prm));
-		// Initialize random number generator
-		// to three random seeds.
-		et.strt(parm);
-		//********************************************************
-		// Initialize template and actual, head and tail
-		//********************************************************
-		tmplHead.prev = tmplTail;
-		tmplTail.next = tmplHead;
-		tmplHead.key  = 99999;
-		tmplTail.key  = 11111;
-		actHead.prev  = actTail;
-		actTail.next  = actHead;
-		actHead.key   = 88888;
-		actTail.key   = 22222;
+			if (arg[i].equals("-s") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				size = Integer.parseInt(arg[i]);
+				} // if template size
+			else if (arg[i].equals("-n") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				samples = Long.parseLong(arg[i]);
+				nset = true;
+				} // else if number of samples
+			else if (arg[i].equals("-q") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				prob = Double.parseDouble(arg[i]);
+				} // else if probability of no match
+			else if (arg[i].equals("-p") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				workers = Integer.parseInt(arg[i]);
+				} // if parallel
+			else if (arg[i].equals("-v"))
+			   {
+				report = true;
+				} // else if report throughput
+			else if (arg[i].equals("-b") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				bits = Integer.parseInt(arg[i]);
+				} // else if bits per output
+			else if (arg[i].equals("-f") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				file = arg[i];
+				} // else if input file
+			else if (arg[i].equals("-o") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				order = arg[i];
+				} // else if bit order
+			else if (arg[i].equals("-k") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				skip = Long.parseLong(arg[i]);
+				} // else if bytes to skip
+			else if (arg[i].equals("-l") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				limit = Long.parseLong(arg[i]);
+				} // else if most bytes to read
+			else if (arg[i].equals("-c") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				ckfile = arg[i];
+				} // else if checkpoint file
+			else if (arg[i].equals("-e") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				every = Long.parseLong(arg[i]);
+				} // else if samples between checkpoints
+			else if (arg[i].equals("-r") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				resume = arg[i];
+				} // else if resume from checkpoint
+			else if (arg[i].equals("-w") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				rptfile = arg[i];
+				} // else if report file
+			else if (arg[i].equals("-m") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				rptSamples = Long.parseLong(arg[i]);
+				} // else if samples between reports
+			else if (arg[i].equals("-t") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				rptSecs = Double.parseDouble(arg[i]);
+				} // else if seconds between reports
+			else if (arg[i].equals("-a") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				alpha = Double.parseDouble(arg[i]);
+				} // else if sequential test
+			else if (arg[i].equals("-d") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				effect = Double.parseDouble(arg[i]);
+				} // else if effect size
+			else if (arg[i].equals("-g") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				looks = Integer.parseInt(arg[i]);
+				} // else if number of looks
+			else if (arg[i].equals("-K") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				bank = Integer.parseInt(arg[i]);
+				} // else if bank of templates
+			else if (arg[i].equals("-H") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				histfile = arg[i];
+				} // else if tally of each template
+			else if (arg[i].equals("-S") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				stride = Integer.parseInt(arg[i]);
+				} // else if stride
+			else if (arg[i].equals("-B") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				block = Integer.parseInt(arg[i]);
+				} // else if block
+			else if (arg[i].equals("-x") && i + 1 < arg.length)
+			   {
+				i = i + 1;
+				kernel = arg[i];
+				} // else if match kernel
+			else if (arg[i].equals("-j"))
+			   {
+				jmx = true;
+				} // else if MBean
+			else
+			   {
+				usage = true;
+				} // else invalid parameter
+			} // for each parameter
+		if (usage || (bits != 1 && bits != 32) || size < 1 || samples < 0
+		   || !(prob > 0.0 && prob < 1.0)
+			|| !(order.equals("msb") || order.equals("lsb"))
+			|| skip < 0 || limit < -1 || every < 1
+			|| rptSamples < 0 || !(rptSecs > 0.0)
+			|| !(alpha >= 0.0 && alpha < 1.0) || !(effect > 0.0)
+			|| workers < -1 || looks < 1 || bank < 0 || stride < -1
+			|| block < 0 || (block > 0 && (block < size || stride >= 0))
+			|| !(kernel.equals("scalar") || kernel.equals("vector")))
+		   {
+			usage();
+			return;
+			} // if invalid parameter
+		msg = conflict(workers, report, file, ckfile, resume, rptfile,
+		   alpha, nset, bank, histfile, stride, block, jmx);
+		if (msg != null)
+		   {
+			System.out.println("Template: " + msg);
+			usage();
+			return;
+			} // if options do not go together
+		if (BitRing.useKernel(kernel) != 0)
+		   {
+			System.out.print("Template: no vector kernel here, ");
+			System.out.println("using the scalar kernel");
+			} // if no vector kernel
+		if (rptfile != null)
+		   {
+			try
+			   {
+				rpt = new ChiRpt(rptfile, rptSamples, rptSecs);
+				} // try
+			catch (IOException e)
+			   {
+				System.out.print("Template: cannot write ");
+				System.out.println(rptfile);
+				return;
+				} // catch
+			} // if interim reports
+		if (file != null && !nset)
+		   {
+			samples = Long.MAX_VALUE;
+			} // if to the end of the input
+		if (bank > 0)
+		   {
+			runBank(size, bank, samples, prob, bits, file, order, skip,
+			   limit, histfile);
+			return;
+			} // if bank of templates
+		if (stride >= 0 || block > 0)
+		   {
+			if (stride == 0) stride = size;
+			runScan(size, samples, prob, bits, Math.max(stride, 0),
+			   block, file, order, skip, limit);
+			return;
+			} // if stride or block mode
+		if (workers == 0)
+		   {
+			workers = Runtime.getRuntime().availableProcessors();
+			} // if one worker per core
 		//********************************************************
-		// Calculate array of expected matches
-		// currProb is initialized to prob.
+		// -p needs a source that can be split, and -c a
+		// source that can be saved.  Check before any
+		// samples are taken, rather than fail in the middle
+		// of the run.  For -r, the kind of source is in the
+		// checkpoint, and is checked when it is read.
 		//********************************************************
-		for (i=0;i<sizePlus;i++)
+		et  = new Etaus();
+		src = makeSrc(bits, et);
+		if ((workers > 0 && file == null && !(src instanceof SplitSrc))
+		   || (ckfile != null && !(src instanceof SaveSrc)))
 		   {
-		   expected[i] = currProb * dblSamples;
-			currProb *= prob;
-			} // for each expected #matches
-		} // constructor
-
-   private class Node
-	   {
-		private Node next;
-		private Node prev;
-		private int key;
-		} // class Node
-
-	// add a new node to the head of the template queue
+			usage();
+			return;
+			} // if source cannot be split or saved
+		if (resume != null)
+		   {
+			//*****************************************************
+			// Load the test and etaus from the checkpoint
+			//*****************************************************
+			bb = Ckpt.read(resume);
+			if (bb == null) return;
+			bits = bb.getInt();
+			tmpl = TmplEngine.load(bb);
+			if (tmpl == null || (bits != 1 && bits != 32))
+			   {
+				System.out.print("Template: not a template test ");
+				System.out.println(resume);
+				return;
+				} // if not a template test
+			src = makeSrc(bits, et);
+			if (!(src instanceof SaveSrc))
+			   {
+				usage();
+				return;
+				} // if source cannot be loaded
+			((SaveSrc) src).load(bb);
+			System.out.print("Resume from " + resume);
+			System.out.println(" at sample " + tmpl.samplesDone());
+			} // if resume
+		else
+		   {
+			//*****************************************************
+			// Initialize etaus random number generator
+			// to three random seeds.
+			//*****************************************************
+			parm = TmplEngine.randomSeeds();
+			et.strt(parm);
+			tmpl = new TmplEngine(size, samples, prob);
+			tmpl.bldTemplate(src);
+			} // else new run
+		if (ckfile != null)
+		   {
+			//*****************************************************
+			// Open the checkpoint now, so that a file that
+			// cannot be written stops the run before any
+			// samples are taken.  The tag is the bits of the
+			// run, which -r reads from the checkpoint.
+			//*****************************************************
+			try
+			   {
+				ckpt = new Ckpt(ckfile, bits);
+				} // try
+			catch (IOException e)
+			   {
+				System.out.print("Template: cannot write ");
+				System.out.println(ckfile);
+				return;
+				} // catch
+			} // if checkpoints
+		if (jmx && TmplStats.register(tmpl, parm) != 0)
+		   {
+			System.out.println("Template: cannot register the MBean");
+			} // if no MBean
+		if (rpt != null)
+		   {
+			tmpl.setReport(rpt);
+			} // if interim reports
+		if (alpha > 0.0)
+		   {
+			tmpl.setSeqTest(new SeqTest(alpha, alpha, effect, looks,
+			   samples));
+			} // if sequential test
+		if (file != null)
+		   {
+			//*****************************************************
+			// Take the samples from the input file
+			//*****************************************************
+			try
+			   {
+				if (file.equals("-"))
+				   {
+					ch = Channels.newChannel(System.in);
+					} // if stdin
+				else
+				   {
+					ch = FileChannel.open(Paths.get(file),
+					   StandardOpenOption.READ);
+					} // else file
+				source = "   Input " + file;
+				if (workers > 0)
+				   {
+					// parallel scan through a memory map
+					fc = (FileChannel) ch;
+					nbytes = Math.max(0L, fc.size() - skip);
+					if (limit >= 0)
+					   {
+						nbytes = Math.min(nbytes, limit);
+						} // if limit
+					status = tmpl.takeSamplesMap(new MappedSrc(fc,
+					   order.equals("msb"), skip, nbytes), workers,
+						report);
+					} // if parallel
+				else
+				   {
+					data = new StreamSrc(ch, order.equals("msb"),
+					   skip, limit);
+					status = tmpl.bldActual(data);
+					if (status == 0)
+					   {
+						status = tmpl.takeSamples(data);
+						} // if sample queue built
+					} // else one thread
+				ch.close();
+				} // try
+			catch (IOException e)
+			   {
+				System.out.print("Template: cannot read ");
+				System.out.println(file);
+				return;
+				} // catch
+			catch (UncheckedIOException e)
+			   {
+				System.out.print("Template: cannot read ");
+				System.out.println(file);
+				return;
+				} // catch
+			} // if input file
+		else if (workers > 0)
+		   {
+			status = tmpl.takeSamplesPar((SplitSrc) src, parm, workers,
+			   report);
+			} // if parallel
+		else
+		   {
+			if (resume == null)
+			   {
+				tmpl.bldActual(src);
+				} // if new run
+			if (ckpt != null)
+			   {
+				tmpl.setCheckpoint(ckpt, every, (SaveSrc) src);
+				} // if checkpoints
+			status = tmpl.takeSamples(src);
+			if (ckpt != null)
+			   {
+				ckpt.close();
+				} // if checkpoints
+			} // else one thread
+		if (rpt != null)
+		   {
+			rpt.close();
+			} // if interim reports
+  		if (status == 0)
+  		   {
+  		   tmpl.printHeading("         Template Test", source);
+  		   tmpl.calcChisq();
+  			} // if no wrap-around error
+		} // main
 
-   public void pushTemplate(int key)
-	   {
-		// most recently added node is called last
-		// x is the new node being added
-		Node last = tmplHead.prev;
-		Node x = new Node();
-		x.next = tmplHead;
-		x.prev = last;
-		tmplHead.prev = x;
-		last.next = x;
-		x.key = key;
-		} // pushTemplate
+	// return the message for the options that do not go
+	// together, or null if they all do.  The options not
+	// given have their defaults: workers -1, file, ckfile,
+	// resume, rptfile and histfile null, alpha 0, bank 0,
+	// stride -1 and block 0.
 
-   // add a new node to the head of the sample queue
-	
-   public void pushActual(int key)
+	private static String conflict(int workers, boolean report,
+	   String file, String ckfile, String resume, String rptfile,
+		double alpha, boolean nset, int bank, String histfile,
+		int stride, int block, boolean jmx)
 	   {
-		// most recently added node is called last
-		// x is the new node being added
-		Node last = actHead.prev;
-		Node x = new Node();
-		x.next = actHead;
-		x.prev = last;
-		actHead.prev = x;
-		last.next = x;
-		x.key = key;
-		} // pushActual
+		if ((ckfile != null || resume != null)
+		   && (file != null || workers >= 0))
+		   {
+			return("-c and -r do not apply to -p or -f");
+			} // if checkpoint of parallel or file
+		if (rptfile != null && workers >= 0)
+		   {
+			return("-w does not apply to -p");
+			} // if report of parallel
+		if (alpha > 0.0 && (workers >= 0 || resume != null))
+		   {
+			return("-a does not apply to -p or -r");
+			} // if sequential test of parallel or resume
+		if (alpha > 0.0 && file != null && !nset)
+		   {
+			return("-a with -f needs -n");
+			} // if sequential test of whole file
+		if (bank > 0 && (workers >= 0 || ckfile != null
+		   || resume != null || rptfile != null || alpha > 0.0))
+		   {
+			return("-K does not apply to -p, -c, -r, -w or -a");
+			} // if bank of templates with one template options
+		if ((stride >= 0 || block > 0) && (workers >= 0
+		   || ckfile != null || resume != null || rptfile != null
+			|| alpha > 0.0 || bank > 0))
+		   {
+			return("-S and -B do not apply to -p, -c, -r, -w, -a or -K");
+			} // if stride or block with other modes
+		if (jmx && (bank > 0 || stride >= 0 || block > 0))
+		   {
+			return("-j does not apply to -K, -S or -B");
+			} // if MBean of bank or scan
+		if (histfile != null && bank == 0)
+		   {
+			return("-H applies only to -K");
+			} // if tally of each template without a bank
+		if (report && workers < 0)
+		   {
+			return("-v applies only to -p");
+			} // if throughput of one thread
+		if (file != null && file.equals("-") && workers >= 0)
+		   {
+			return("-p does not apply to stdin");
+			} // if parallel stdin
+		return(null);
+		} // conflict
 
-   // remove the least recently added node
-	// from the tail of the template queue
+	// return the source of etaus bits for -b bits
 
-   public void popTemplate()
+	private static BitSrc makeSrc(int bits, Etaus et)
 	   {
-		// least recently added node is
-		// called the first node
-		Node first = tmplTail.next;
-		tmplTail.next = first.next;
-		first.prev = tmplTail;
-		} // popTemplate
+		if (bits == 32)
+		   {
+			return(new HarvSrc(et));
+			} // if harvest mode
+		return(new EtausSrc(et));
+		} // makeSrc
 
-   // remove the least recently added node
-	// from the tail of the sample queue
+	// Print the usage of Template
 
-   public void popActual()
+	private static void usage()
 	   {
-		// least recently added node is
-		// called the first node
-		Node first = actTail.next;
-		actTail.next = first.next;
-		first.prev = actTail;
-		} // popActual
-
-   // Create a random template of zeros and ones.
-	// The template is a doubly linked list.
-
-   private void bldTemplate()
+		System.out.print("Usage: java Template ");
+		System.out.println("[-s size] [-n samples] [-q prob]");
+		System.out.print("                     ");
+		System.out.println("[-p workers] [-v] [-b bits]");
+		System.out.print("                     ");
+		System.out.println("[-f file] [-o order] [-k skip] [-l limit]");
+		System.out.print("                     ");
+		System.out.println("[-c ckpt] [-e every] [-r ckpt]");
+		System.out.print("                     ");
+		System.out.println("[-w file] [-m samples] [-t seconds]");
+		System.out.print("                     ");
+		System.out.println("[-a alpha] [-d w] [-g looks]");
+		System.out.print("                     ");
+		System.out.println("[-K templates] [-H file]");
+		System.out.print("                     ");
+		System.out.println("[-S stride] [-B block] [-x kernel] [-j]");
+		} // usage
+
+	// Run the test with a bank of templates, from etaus,
+	// against samples from etaus, or from the file if
+	// file is not null.
+
+	private static void runBank(int size, int bank, long samples,
+	   double prob, int bits, String file, String order, long skip,
+		long limit, String histfile)
 	   {
-		int i;
-		for (i=0;i<size;i++)
+		int status;
+		String source = "   etaus Random Number Generator";
+		TmplBank tmpl;
+		Etaus et;
+		BitSrc src;
+		ReadableByteChannel ch = null;
+		//********************************************************
+		// The templates come from etaus, seeded at random
+		//********************************************************
+		et = new Etaus();
+		et.strt(TmplEngine.randomSeeds());
+		if (bits == 32)
 		   {
-			int num;
-			num = et.genbit();   // generate a zero or a one
-			pushTemplate(num);   // add to end of linked list
-			} // for each node in the template queue
-		} // bldTemplate
-
-   // for debugging, print the template queue
-
-   private void showTemplate()
-	   {
-		int i;
-		System.out.println("showTemplate");
-		Node curr = new Node();
-		curr = tmplTail.next;
-		if (curr == tmplHead)
+			src = new HarvSrc(et);
+			} // if harvest mode
+		else
 		   {
-			System.out.print("showTemplate: ");
-			System.out.println("empty queue");
-			return;
-			} // if curr == tmplHead
-		i = 0;
-		while (curr != tmplHead)
-		   {
-			i = i + 1;
-			System.out.println(i + ". " + curr.key);
-			curr = curr.next;
-			} // for each node in template
-		} // showTemplate
-
-   // Create a random sample queue of zeros and ones.
-	// The sample queue is a doubly linked list.
-
-   private void bldActual()
-	   {
-		int i;
-		for (i=0;i<size;i++)
+			src = new EtausSrc(et);
+			} // else one bit per output
+		tmpl = new TmplBank(size, bank, samples, prob);
+		tmpl.bldTemplates(src);
+		try
 		   {
-			int num;
-			num = et.genbit();   // generate a zero or a one
-			pushActual(num);     // add to end of linked list
-			} // for each node in the template queue
-		} // bldActual
-
-   // for debugging, print the sample queue
-
-   private void showActual()
-	   {
-		int i;
-		System.out.println("showActual");
-		Node curr = new Node();
-		curr = actTail.next;
-		if (curr == actHead)
+			if (file != null)
+			   {
+				if (file.equals("-"))
+				   {
+					ch = Channels.newChannel(System.in);
+					} // if stdin
+				else
+				   {
+					ch = FileChannel.open(Paths.get(file),
+					   StandardOpenOption.READ);
+					} // else file
+				source = "   Input " + file;
+				src = new StreamSrc(ch, order.equals("msb"), skip, limit);
+				} // if input file
+			status = tmpl.bldActual(src);
+			if (status == 0)
+			   {
+				status = tmpl.takeSamples(src);
+				} // if sample queue built
+			if (ch != null)
+			   {
+				ch.close();
+				} // if input file
+			} // try
+		catch (IOException e)
 		   {
-			System.out.print("showActual: ");
-			System.out.println("empty queue");
+			System.out.print("Template: cannot read ");
+			System.out.println(file);
 			return;
-			} // if curr == actHead
-		i = 0;
-		while (curr != actHead)
-		   {
-			i = i + 1;
-			System.out.println(i + ". " + curr.key);
-			curr = curr.next;
-			} // for each node in template
-		} // showActual
-
-   // count the number of matches, left to right, of
-	// the sample queue against the template queue
-	// return the actual number of matches in the
-	// least recent tail of the queue
-  	// If the number of matches, left to right,
-  	// is 1024, then a wrap-around error is generated.
-
-   public int match()
-		{
-		int tally;    // number of continuous matches left to right
-		// the current position in each queue.
-		Node currActual   = new Node();
-		Node currTemplate = new Node();
-		// match from tail to head
-		currActual = actTail.next;
-		if (currActual == actHead)
-		   {
-			System.out.print("match: ");
-			System.out.println("empty actual queue");
-			return(0);
-			} // if currActual == actHead
-		currTemplate = tmplTail.next;
-		if (currTemplate == tmplHead)
-		   {
-			System.out.print("match: ");
-			System.out.println("empty template queue");
-			return(0);
-			} // if currTemplate == tmplHead
-		tally = 0;
-		while (currActual != actHead)
-		   {
-			if (currTemplate == tmplHead)
-			   {
-				System.out.print("match: ");
-				System.out.println("template node missing");
-				return(0);
-				} // if no corresponding template node
-			// comparison ends at the first non-match
-			if (currActual.key != currTemplate.key)
-			   {
-				break;
-				} // if node does not match
-         tally = tally + 1;   // #nodes matched
-			currActual   = currActual.next;
-			currTemplate = currTemplate.next;
-			} // for each actual node
-  		if (tally >= size)
-  		   {
-  			System.out.print("match: ");
-  			System.out.println("wrap-around error");
-  			} // if wrap-around error
-		return(tally);   // #matches left to right
-	   } // match
-
-   // generate one million rolling sample queues.
-	// pop the least recent sample
-	// push the newest sample
-	// match the new queue
-  	// return zero if no wrap-around error
-  	// return one  if    wrap-around error
-
-   public int takeSamples()
-	   {
-		int i;
-		int num;
-		int count = 0;
-		int status;
-		for (i=0;i<samples;i++)
-		   {
-		   popActual();
-			num = et.genbit();
-		   pushActual(num);
-		   count = match();
-  			if (count >= size)
-  			   {
-  				System.out.print("Sample # ");
-  				System.out.println(i + 1);
-  				break;
-  				} // if wrap-around error
-		   actual[count] += 1.0;
-			} // for each sample queue
-  		status = 0;
-      if (count >= size)
-         {
-         status = 1;
-         } // if wrap-around error
-  		return(status);
-		} // takeSamples
-
-   // Print the heading on the chi square report.
-	// The first column is the # of matches
-
-   public void printHeading()
-	   {
-		System.out.println();
-		System.out.print("            ");
-		System.out.println("         Template Test");
-		System.out.print("            ");
-		System.out.println("   etaus Random Number Generator");
-		System.out.println();
-		System.out.print("Matches  ");
-		System.out.print("  Actual      ");
-		System.out.print("  Expected  ");
-		System.out.print("  Difference    ");
-		System.out.println("Chi Square");
-		} // printHeading
-
-   // Calculate the chi square of actual nodes matched
-
-   public void calcChisq()
-	   {
-		int i;
-		double df;          // degrees of freedom
-		double chisq;       // chi square statistic
-		double diff;        // actual - expected
-		double diffsq;      // difference squared
-		// initialize totals
-		chisq = 0.0;
-		df    = 0.0;
-		// a valid chi square test has ten or more
-		// expected tallies
-		i = 0;
-		while (expected[i] >= 10.0)
-		   {
-			diff = actual[i] - expected[i];
-			diffsq = diff * diff;
-			chisq = chisq + (diffsq / expected[i]);
-			System.out.printf("%5d  ", i);
-			System.out.printf("%10.0f  ", actual[i]);
-			System.out.printf("%14.4f  ", expected[i]);
-			System.out.printf("%12.4f  ", diff);
-			System.out.printf("%10.4f\n", chisq);
-			df = df + 1.0;
-			i = i + 1;
-			} // for each expected >= 10.0
-		df = df - 1.0;
-		System.out.println();
-		System.out.printf("Chi square %10.4f\n", chisq);
-		System.out.printf("Degrees of freedom %4.0f\n", df);
-		} // calcChisq
-
-	public static void main(String arg[])
+			} // catch
+		catch (UncheckedIOException e)
+		   {
+			System.out.print("Template: cannot read ");
+			System.out.println(file);
+			return;
+			} // catch
+		if (status != 0) return;
+		tmpl.printHeading("         Template Test", source);
+		tmpl.calcChisq();
+		if (histfile != null)
+		   {
+			try
+			   {
+				tmpl.writeHist(histfile);
+				} // try
+			catch (IOException e)
+			   {
+				System.out.print("Template: cannot write ");
+				System.out.println(histfile);
+				} // catch
+			} // if tally of each template
+		} // runBank
+
+	// Run the test in stride mode, or in block mode if
+	// block is not zero.  The template is from etaus, and
+	// the samples are from etaus, or from the file if
+	// file is not null.
+
+	private static void runScan(int size, long samples, double prob,
+	   int bits, int stride, int block, String file, String order,
+		long skip, long limit)
 	   {
 		int status;
-		Template tmpl = new Template();
-		tmpl.bldTemplate();
-		tmpl.bldActual();
-  		status = tmpl.takeSamples();
-  		if (status == 0)
-  		   {
-  		   tmpl.printHeading();
-  		   tmpl.calcChisq();
-  			} // if no wrap-around error
-		} // main
+		String source = "   etaus Random Number Generator";
+		TmplScan tmpl;
+		Etaus et;
+		BitSrc src;
+		ReadableByteChannel ch = null;
+		et = new Etaus();
+		et.strt(TmplEngine.randomSeeds());
+		if (bits == 32)
+		   {
+			src = new HarvSrc(et);
+			} // if harvest mode
+		else
+		   {
+			src = new EtausSrc(et);
+			} // else one bit per output
+		tmpl = new TmplScan(size, samples, prob, stride, block);
+		tmpl.bldTemplate(src);
+		try
+		   {
+			if (file != null)
+			   {
+				if (file.equals("-"))
+				   {
+					ch = Channels.newChannel(System.in);
+					} // if stdin
+				else
+				   {
+					ch = FileChannel.open(Paths.get(file),
+					   StandardOpenOption.READ);
+					} // else file
+				source = "   Input " + file;
+				src = new StreamSrc(ch, order.equals("msb"), skip, limit);
+				} // if input file
+			status = tmpl.takeSamples(src);
+			if (ch != null)
+			   {
+				ch.close();
+				} // if input file
+			} // try
+		catch (IOException e)
+		   {
+			System.out.print("Template: cannot read ");
+			System.out.println(file);
+			return;
+			} // catch
+		catch (UncheckedIOException e)
+		   {
+			System.out.print("Template: cannot read ");
+			System.out.println(file);
+			return;
+			} // catch
+		if (status != 0) return;
+		tmpl.printHeading("         Template Test", source);
+		tmpl.calcChisq();
+		} // runScan
 
 	} // class Template
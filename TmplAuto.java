@@ -0,0 +1,214 @@
+// TmplAuto.java - Incremental template match automaton  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class counts the template matches of every sample
+// queue without walking the queue.
+// Each sample queue starts one bit later in the stream
+// than the previous queue.  The number of matches of a
+// queue is the length of the longest prefix of the
+// template that starts at the first bit of the queue.
+// A queue is called an alignment while its prefix is
+// still growing.
+// The alignments still growing after bit j of the stream
+// are exactly the prefixes of the template that end at
+// bit j.  Those are the state q of the Knuth-Morris-Pratt
+// automaton, and the borders of q, found by following
+// the failure function.
+// When the next bit c arrives, every alignment b with
+// template bit b equal to c grows by one, and every other
+// alignment ends with b matches.
+// The table nxt[] gives, for each state q and bit c,
+// the longest alignment in the chain of q with template
+// bit c.  The new state is one more than the longest
+// alignment with bit c, and the ended alignments are
+// found by following the chain of the other bit.
+// Each alignment ends exactly once, so the cost per
+// sample is constant, amortized over the run, no matter
+// how long the matches are.
+// The automaton is built once from the template.
+//**********************************************************
+
+import java.nio.ByteBuffer;
+
+public class TmplAuto
+   {
+
+   private int size;         // #bits in template
+   private int fail[];       // longest proper border of each prefix
+	// nxt[2*q+c] is the longest alignment in the chain of
+	// state q whose next template bit is c, or -1
+   private int nxt[];
+   private int q;            // current state, #bits matched
+   private long posn;        // stream position of next bit
+   private long first;       // first stream position counted
+   private long hist[];      // tally of ended alignments
+
+	TmplAuto(BitRing ring, long hist[])
+	   {
+		int i;
+		int k;
+		int b;
+		size = ring.tmplCount();
+		this.hist = hist;
+		fail = new int[size+1];
+		nxt  = new int[2*(size+1)];
+		//********************************************************
+		// Knuth-Morris-Pratt failure function
+		//********************************************************
+		fail[0] = -1;
+		k = -1;
+		for (i=0;i<size;i++)
+		   {
+			while (k >= 0 && ring.getTemplate(k) != ring.getTemplate(i))
+			   {
+				k = fail[k];
+				} // while border does not extend
+			k = k + 1;
+			fail[i+1] = k;
+			} // for each prefix of the template
+		//********************************************************
+		// Longest alignment with next bit zero or one
+		//********************************************************
+		for (i=0;i<=size;i++)
+		   {
+			for (b=0;b<2;b++)
+			   {
+				if (i < size && ring.getTemplate(i) == b)
+				   {
+					nxt[2*i+b] = i;
+					} // if template bit i is b
+				else if (i == 0)
+				   {
+					nxt[2*i+b] = -1;
+					} // else if end of chain
+				else
+				   {
+					nxt[2*i+b] = nxt[2*fail[i]+b];
+					} // else follow the border
+				} // for each bit value
+			} // for each state
+		q     = 0;
+		posn  = 0;
+		first = 1;
+		} // constructor
+
+	// share the tables of another automaton
+	// The tables are not changed after they are built,
+	// so several threads may share them.  Each copy has
+	// its own state and its own tally.
+
+	TmplAuto(TmplAuto orig, long hist[])
+	   {
+		size = orig.size;
+		fail = orig.fail;
+		nxt  = orig.nxt;
+		this.hist = hist;
+		q     = 0;
+		posn  = 0;
+		first = 1;
+		} // copy constructor
+
+   // Add the next bit of the stream.
+	// Every alignment that ends is tallied.
+	// The alignment starting at the first stream position
+	// is not tallied, because the first sample queue
+	// is taken after one pop and one push.
+	// return one if the alignment that started size-1 bits
+	// ago matched the whole template
+	// return zero otherwise
+
+   public int step(int c)
+	   {
+		int d;
+		int inv;
+		int full;
+		inv = (c ^ 1) & 1;
+		// alignments ending at this bit
+		d = nxt[2*q+inv];
+		while (d >= 0)
+		   {
+			if (posn - d >= first)
+			   {
+				hist[d]++;
+				} // if a sample queue
+			if (d == 0) break;
+			d = nxt[2*fail[d]+inv];
+			} // for each alignment ending here
+		// longest alignment still growing
+		q = nxt[2*q+(c&1)] + 1;
+		full = 0;
+		if (q >= size && posn - size + 1 >= first)
+		   {
+			full = 1;
+			} // if whole template matched
+		posn = posn + 1;
+		return(full);
+		} // step
+
+   // number of bytes written by save()
+
+   public static final int saveSize = 4 + 8 + 8;
+
+   // write the state of the automaton to bb
+	// The tables are built again from the template.
+
+   public void save(ByteBuffer bb)
+	   {
+		bb.putInt(q);
+		bb.putLong(posn);
+		bb.putLong(first);
+		} // save
+
+   // read the state of the automaton from bb,
+	// as written by save()
+
+   public void load(ByteBuffer bb)
+	   {
+		q     = bb.getInt();
+		posn  = bb.getLong();
+		first = bb.getLong();
+		} // load
+
+   // At the end of the run, the alignments that start
+	// after the least recent bit of the last sample queue
+	// have not been sampled.  Those that have already
+	// ended were tallied by step, so remove them from
+	// the tally.  The sample queue in the ring holds the
+	// bits needed to find their lengths.
+
+   public void trim(BitRing ring)
+	   {
+		int i;
+		int avail;
+		int tally;
+		for (i=1;i<ring.actCount();i++)
+		   {
+			avail = ring.actCount() - i;
+			if (posn - avail < first) continue;
+			tally = ring.matchAt(i);
+			if (tally < avail)
+			   {
+				hist[tally]--;
+				} // if alignment already ended
+			} // for each unsampled alignment
+		} // trim
+
+   } // class TmplAuto
@@ -0,0 +1,7 @@
+CC=javac
+
+TmplAuto.class:					TmplAuto.java
+			$(CC) TmplAuto.java
+
+clean:
+			rm -f TmplAuto.class
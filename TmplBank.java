@@ -0,0 +1,632 @@
+// TmplBank.java - Bank of templates matched in one pass  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class runs the template test with many templates
+// at once.  Each sample queue is matched against every
+// template in the bank, in one pass over the bits, and
+// each template has its own tally of matches.
+// The templates are kept in a binary trie.  The node at
+// depth d holds the templates that share the same first
+// d bits.  A node is split on bit d until it holds one
+// template, which is a leaf.
+// Each sample queue walks down the trie from the root,
+// one queue bit per level.  At the node of depth d,
+// every template on the other side of bit d matches
+// exactly d bits.  If that side is a leaf, its tally is
+// counted at once.  If it is a node, the node's count
+// is raised by one, and the count is added to the tally
+// of each of its templates at the end of the run.
+// When the walk reaches a leaf, the rest of that one
+// template is compared 64 bits at a time.
+// K random templates part in about log2(K) levels, so the
+// cost per sample grows with log2(K), not with K.
+// The tallies of each template are kept for the classes
+// of the chi square test, plus one class for all longer
+// matches.
+// Templates that share a prefix share their tallies, so
+// the sum of the chi squares of the templates is not a
+// chi square.  Instead, each sample queue ends its walk
+// in one cell: at a node with no child for its next bit,
+// or at a leaf, with the number of bits it matched.  The
+// cells split the sample queues, like the classes of one
+// template, and the aggregate chi square is over the
+// cells.  With one template, the cells are the classes.
+//**********************************************************
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class TmplBank
+   {
+
+   private int size;             // size of each template and queue
+   private int count;            // #templates in the bank
+   private int words;            // #64-bit words in each template
+   private long samples;         // #samples in test
+   private double dblSamples;
+   private double prob;          // probability of no match
+	// template t is in tmpl[t*words] to tmpl[t*words+words-1],
+	// oldest bit in bit 0
+   private long tmpl[];
+	// expected number of sample queues to match
+	// each number of bits, for one template
+   private double expected[];
+	// tally of template t is in hist[t*width] to
+	// hist[t*width+width-1]
+	// The last class is all matches of width-1 bits or more.
+   private long hist[];
+   private int width;            // #classes tallied for each template
+   private BitRing ring;         // sample queue
+	//************************************************************
+	// The trie.  Node zero is the root.
+	// kid[2*v+c] is the child of node v for bit c.  It is
+	// a node if it is positive, a leaf -(t+1) for template
+	// t if it is negative, or none if it is zero.
+	// The templates of node v are ord[lo[v]] to ord[hi[v]-1].
+	// end[v] is the number of sample queues that matched
+	// the templates of node v up to, but not including,
+	// the last bit of the node.
+	//************************************************************
+   private int ord[];
+   private int kid[];
+   private int lo[];
+   private int hi[];
+   private int dep[];            // depth of each node
+   private long end[];
+   private int nodes;            // #nodes in the trie
+	// miss[v] is the number of sample queues that ended at
+	// node v, with no child for the next bit
+   private long miss[];
+	// tally of the sample queues that ended at the leaf of
+	// template t is in cell[t*width] to cell[t*width+width-1]
+   private long cell[];
+   private int leaf[];           // depth of the leaf of each template
+
+	TmplBank(int size, int count, long samples, double prob)
+	   {
+		int top;
+		this.size    = size;
+		this.count   = count;
+		this.samples = samples;
+		this.prob    = prob;
+		words      = (size + 63) >>> 6;
+		dblSamples = (double) samples;
+		tmpl       = new long[count * words];
+		expected   = new double[size + 1];
+		ring       = new BitRing(size);
+		calcExpected();
+		// one class for each class of the chi square,
+		// and one for the rest
+		top   = Math.max(1, classes());
+		width = top + 1;
+		hist  = new long[count * width];
+		cell  = new long[count * width];
+		leaf  = new int[count];
+		} // constructor
+
+   // Calculate array of expected matches for the
+	// number of samples, as in TmplEngine
+
+   private void calcExpected()
+	   {
+		TmplEngine.geometric(expected, dblSamples, prob);
+		} // calcExpected
+
+   // return the number of classes in the chi square,
+	// those with ten or more expected tallies
+
+   private int classes()
+	   {
+		int i;
+		i = 0;
+		while (i < size && expected[i] >= 10.0)
+		   {
+			i = i + 1;
+			} // for each expected >= 10.0
+		return(i);
+		} // classes
+
+   // Create count random templates of zeros and ones,
+	// one after the other from src, and build the trie.
+  	// return zero if the templates are built
+  	// return one  if the source ends first
+
+   public int bldTemplates(BitSrc src)
+	   {
+		int t;
+		int i;
+		int num;
+		int base;
+		PhaseEvent ev;
+		ev = Phase.begin("bldTemplate", size);
+		for (t=0;t<count;t++)
+		   {
+			base = t * words;
+			for (i=0;i<size;i++)
+			   {
+				num = src.nextBit(); // generate a zero or a one
+				if (num < 0)
+				   {
+					System.out.print("bldTemplates: ");
+					System.out.println("end of input");
+					Phase.end(ev);
+					return(1);
+					} // if end of input
+				tmpl[base + (i >>> 6)] |= (long) (num & 1) << (i & 63);
+				} // for each bit in the template
+			} // for each template
+		//********************************************************
+		// Build the trie.  There are about 1.44 nodes for
+		// each random template, and the arrays grow if
+		// there are more.
+		//********************************************************
+		ord = new int[count];
+		for (t=0;t<count;t++)
+		   {
+			ord[t] = t;
+			} // for each template
+		nodes = 0;
+		kid = new int[2 * (2 * count + 16)];
+		lo  = new int[2 * count + 16];
+		hi  = new int[2 * count + 16];
+		dep = new int[2 * count + 16];
+		split(0, count, 0);
+		end  = new long[nodes];
+		miss = new long[nodes];
+		Phase.end(ev);
+		return(0);
+		} // bldTemplates
+
+   // make room for n nodes in the trie
+
+   private void grow(int n)
+	   {
+		kid = Arrays.copyOf(kid, 2 * n);
+		lo  = Arrays.copyOf(lo, n);
+		hi  = Arrays.copyOf(hi, n);
+		dep = Arrays.copyOf(dep, n);
+		} // grow
+
+   // return bit d of template t
+
+   private int tmplBit(int t, int d)
+	   {
+		return((int) (tmpl[t * words + (d >>> 6)] >>> (d & 63)) & 1);
+		} // tmplBit
+
+   // Make the node for the templates ord[a] to ord[b-1],
+	// which share their first d bits, and split it on
+	// bit d.  The root is always a node.  Identical
+	// templates stay in one node at depth size.
+	// return the child code of the node, or of a leaf
+
+   private int split(int a, int b, int d)
+	   {
+		int v;
+		int i;
+		int m;
+		int tmp;
+		int k0;
+		int k1;
+		if (b - a == 1 && d > 0)
+		   {
+			leaf[ord[a]] = d;
+			return(-(ord[a] + 1));
+			} // if one template
+		if (nodes == lo.length)
+		   {
+			grow(2 * nodes);
+			} // if trie full
+		v = nodes;
+		nodes = nodes + 1;
+		lo[v]  = a;
+		hi[v]  = b;
+		dep[v] = d;
+		if (d == size) return(v);
+		// templates with bit d zero first
+		m = a;
+		for (i=a;i<b;i++)
+		   {
+			if (tmplBit(ord[i], d) == 0)
+			   {
+				tmp    = ord[m];
+				ord[m] = ord[i];
+				ord[i] = tmp;
+				m = m + 1;
+				} // if bit d is zero
+			} // for each template of the node
+		k0 = 0;
+		k1 = 0;
+		if (m > a) k0 = split(a, m, d + 1);
+		if (m < b) k1 = split(m, b, d + 1);
+		kid[2*v]   = k0;
+		kid[2*v+1] = k1;
+		return(v);
+		} // split
+
+   // Create a random sample queue of zeros and ones.
+  	// return zero if the sample queue is built
+  	// return one  if the source ends first
+
+   public int bldActual(BitSrc src)
+	   {
+		int i;
+		int num;
+		PhaseEvent ev;
+		ev = Phase.begin("bldActual", size);
+		for (i=0;i<size;i++)
+		   {
+			num = src.nextBit(); // generate a zero or a one
+			if (num < 0)
+			   {
+				System.out.print("bldActual: ");
+				System.out.println("end of input");
+				Phase.end(ev);
+				return(1);
+				} // if end of input
+			ring.pushActual(num);  // add to end of queue
+			} // for each node in the sample queue
+		Phase.end(ev);
+		return(0);
+		} // bldActual
+
+   // generate the rolling sample queues.
+	// pop the least recent sample
+	// push the newest sample from src
+	// match the new queue against every template
+	// If the source ends first, the test is over, and the
+	// expected matches are for the samples taken.
+  	// return zero if no wrap-around error
+  	// return one  if    wrap-around error
+
+   public int takeSamples(BitSrc src)
+	   {
+		long i;
+		int num;
+		int full;
+		int status;
+		PhaseEvent ev;
+		ev = Phase.begin("takeSamples", size);
+		status = 0;
+		for (i=0;i<samples;i++)
+		   {
+			num = src.nextBit();
+			if (num < 0) break;
+			ring.popActual();
+			ring.pushActual(num);
+			full = walk();
+			if (full >= 0)
+			   {
+				System.out.print("match: ");
+				System.out.println("wrap-around error");
+				System.out.print("Template # ");
+				System.out.println(full);
+				System.out.print("Sample # ");
+				System.out.println(i + 1);
+				status = 1;
+				break;
+				} // if wrap-around error
+			} // for each sample queue
+		if (status == 0 && i < samples)
+		   {
+			System.out.print("End of input after ");
+			System.out.print(i);
+			System.out.println(" samples");
+			samples    = i;
+			dblSamples = (double) samples;
+			calcExpected();
+			} // if end of input
+		spread();
+		Phase.end(ev);
+		return(status);
+		} // takeSamples
+
+   // Walk the sample queue down the trie, and tally the
+	// templates that end on the way.
+	// return the template that matched the whole queue,
+	// or -1
+
+   private int walk()
+	   {
+		int v;
+		int d;
+		int c;
+		int in;
+		int out;
+		int t;
+		int len;
+		int top;
+		long bits;
+		top  = width - 1;
+		v    = 0;
+		d    = 0;
+		bits = 0L;
+		while (d < size)
+		   {
+			if ((d & 63) == 0)
+			   {
+				bits = ring.actualBits(d);
+				} // if next 64 bits
+			c   = (int) (bits >>> (d & 63)) & 1;
+			in  = kid[2*v+c];
+			out = kid[2*v+(c^1)];
+			// the other side matches exactly d bits
+			if (out > 0)
+			   {
+				end[out]++;
+				} // if node
+			else if (out < 0)
+			   {
+				hist[(-out-1) * width + Math.min(d, top)]++;
+				} // else if leaf
+			if (in > 0)
+			   {
+				v = in;
+				d = d + 1;
+				continue;
+				} // if node
+			if (in < 0)
+			   {
+				t   = -in - 1;
+				len = d + 1 + rest(t, d + 1);
+				if (len >= size) return(t);
+				hist[t * width + Math.min(len, top)]++;
+				cell[t * width + Math.min(len, top)]++;
+				} // if leaf
+			else
+			   {
+				miss[v]++;
+				} // else no child
+			return(-1);
+			} // for each level of the trie
+		// identical templates all matched
+		return(ord[lo[v]]);
+		} // walk
+
+   // count the matches of template t against the sample
+	// queue, from bit d on, 64 bits at a time
+	// Bits past the end are forced to mismatch.
+
+   private int rest(int t, int d)
+	   {
+		int len;
+		int tally;
+		int pos;
+		int wrd;
+		int shft;
+		int base;
+		long tb;
+		long diff;
+		len   = size - d;
+		base  = t * words;
+		tally = 0;
+		while (tally < len)
+		   {
+			pos  = d + tally;
+			wrd  = pos >>> 6;
+			shft = pos & 63;
+			tb   = tmpl[base + wrd] >>> shft;
+			if (wrd + 1 < words)
+			   {
+				tb |= (tmpl[base + wrd + 1] << 1) << (63 - shft);
+				} // if next word
+			diff = tb ^ ring.actualBits(pos);
+			if (len - tally < 64)
+			   {
+				diff |= -1L << (len - tally);
+				} // if last partial word
+			if (diff != 0L)
+			   {
+				return(tally + Long.numberOfTrailingZeros(diff));
+				} // if mismatch
+			tally = tally + 64;
+			} // for each word
+		return(len);
+		} // rest
+
+   // Add the count of each node to the tally of each of
+	// its templates.  The templates of node v matched
+	// one bit less than the depth of v.
+
+   private void spread()
+	   {
+		int v;
+		int j;
+		int cls;
+		for (v=1;v<nodes;v++)
+		   {
+			if (end[v] == 0) continue;
+			cls = Math.min(dep[v] - 1, width - 1);
+			for (j=lo[v];j<hi[v];j++)
+			   {
+				hist[ord[j] * width + cls] += end[v];
+				} // for each template of the node
+			end[v] = 0;
+			} // for each node
+		} // spread
+
+   // return the chi square of template t over the
+	// first k classes
+
+   private double chisq(int t, int k)
+	   {
+		int i;
+		double diff;
+		double chisq;
+		chisq = 0.0;
+		for (i=0;i<k;i++)
+		   {
+			diff  = hist[t * width + i] - expected[i];
+			chisq = chisq + diff * diff / expected[i];
+			} // for each class
+		return(chisq);
+		} // chisq
+
+   // Print the heading on the chi square report.
+	// title and source are the first two lines,
+	// already centered.
+
+   public void printHeading(String title, String source)
+	   {
+		System.out.println();
+		System.out.print("            ");
+		System.out.println(title);
+		System.out.print("            ");
+		System.out.println(source);
+		System.out.print("            ");
+		System.out.println("   " + count + " templates");
+		System.out.println();
+		System.out.print("Matches  ");
+		System.out.print("  Actual      ");
+		System.out.print("  Expected  ");
+		System.out.print("  Difference    ");
+		System.out.println("Chi Square");
+		} // printHeading
+
+   // Calculate the aggregate chi square over the cells
+	// of the walks, and the chi square of each template.
+	// Each row is the number of bits matched, summed over
+	// the cells with ten or more expected tallies.  The
+	// chi square column is the running sum, so the last
+	// row is the aggregate.  The degrees of freedom are
+	// one less than the number of cells.
+
+   public void calcChisq()
+	   {
+		int i;
+		int t;
+		int v;
+		int k;
+		int df;
+		int least;
+		long act[];
+		double exp[];
+		double chi[];
+		double p;
+		double pmin;
+		double diff;
+		double chisq;
+		PhaseEvent ev;
+		ev = Phase.begin("calcChisq", size);
+		k   = Math.min(classes(), width - 1);
+		act = new long[k];
+		exp = new double[k];
+		chi = new double[k];
+		df  = -1;
+		//********************************************************
+		// Cells at nodes with a missing child
+		//********************************************************
+		for (v=0;v<nodes;v++)
+		   {
+			i = dep[v];
+			if (i >= k) continue;
+			if (kid[2*v] != 0 && kid[2*v+1] != 0) continue;
+			diff   = miss[v] - expected[i];
+			act[i] = act[i] + miss[v];
+			exp[i] = exp[i] + expected[i];
+			chi[i] = chi[i] + diff * diff / expected[i];
+			df = df + 1;
+			} // for each node
+		//********************************************************
+		// Cells at the leaves
+		//********************************************************
+		for (t=0;t<count;t++)
+		   {
+			for (i=leaf[t];i<k;i++)
+			   {
+				diff   = cell[t * width + i] - expected[i];
+				act[i] = act[i] + cell[t * width + i];
+				exp[i] = exp[i] + expected[i];
+				chi[i] = chi[i] + diff * diff / expected[i];
+				df = df + 1;
+				} // for each class
+			} // for each template
+		chisq = 0.0;
+		for (i=0;i<k;i++)
+		   {
+			chisq = chisq + chi[i];
+			System.out.printf("%5d  ", i);
+			System.out.printf("%10d  ", act[i]);
+			System.out.printf("%14.4f  ", exp[i]);
+			System.out.printf("%12.4f  ", act[i] - exp[i]);
+			System.out.printf("%10.4f\n", chisq);
+			} // for each expected >= 10.0
+		//********************************************************
+		// The template with the least p-value
+		//********************************************************
+		least = 0;
+		pmin  = 1.0;
+		for (t=0;t<count;t++)
+		   {
+			p = ChiDist.pvalue(chisq(t, k), k - 1);
+			if (p < pmin)
+			   {
+				pmin  = p;
+				least = t;
+				} // if least so far
+			} // for each template
+		System.out.println();
+		System.out.printf("Chi square %10.4f\n", chisq);
+		System.out.printf("Degrees of freedom %4d\n", df);
+		System.out.printf("P-value %10.6f\n", ChiDist.pvalue(chisq, df));
+		System.out.printf("Least template p-value %10.6f", pmin);
+		System.out.printf("  template # %d\n", least);
+		Phase.end(ev);
+		} // calcChisq
+
+   // Write the tally of each template to a file, one
+	// line for each template:
+	//    template  chisq  df  p  tally of each class
+	// The last tally is all longer matches.
+
+   public void writeHist(String name) throws IOException
+	   {
+		int i;
+		int t;
+		int k;
+		double chisq;
+		StringBuilder sb;
+		BufferedWriter out;
+		k = Math.min(classes(), width - 1);
+		out = new BufferedWriter(new FileWriter(name));
+		out.write("# template  chisq  df  p  actual[0.." + (width - 1) + "]");
+		out.newLine();
+		sb = new StringBuilder();
+		for (t=0;t<count;t++)
+		   {
+			chisq = chisq(t, k);
+			sb.setLength(0);
+			sb.append(String.format("%d %.4f %d %.6g", t, chisq, k - 1,
+			   ChiDist.pvalue(chisq, k - 1)));
+			for (i=0;i<width;i++)
+			   {
+				sb.append(' ');
+				sb.append(hist[t * width + i]);
+				} // for each class
+			out.write(sb.toString());
+			out.newLine();
+			} // for each template
+		out.close();
+		} // writeHist
+
+	} // class TmplBank
@@ -0,0 +1,7 @@
+CC=javac
+
+TmplBank.class:					TmplBank.java
+			$(CC) TmplBank.java
+
+clean:
+			rm -f TmplBank.class
@@ -0,0 +1,1066 @@
+// TmplEngine.java - Template test engine  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is the engine of the template test, shared by
+// Template, SinTempl and WrapTmpl.
+// Each program gives the engine a source of bits, BitSrc,
+// for the template, and another for the samples.
+// The engine builds the template and the first sample
+// queue, takes the rolling samples, and reports the chi
+// square test on the numbers of matches.
+// The probability of not matching the first bit in the
+// template is prob, 1/2 by default.
+// The probability of matching the first bit in the
+// template is 1/4.
+// The probability of matching the first two bits in
+// the template is 1/8, etc.
+// For each sample, the actual queue is popped and pushed,
+// before the queue is matched against the template.
+//**********************************************************
+
+import java.lang.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TmplEngine
+   {
+
+	// #samples between events of the sampling loop, which
+	// read the clock for reports by time and publish the
+	// progress of the loop
+   public static final long clockSteps = 1L << 16;
+
+   private int size;             // size of template and queue
+   private int sizePlus;         // total# of conditions
+   private long samples;         // #samples in test
+   private double dblSamples;
+   private double prob;          // probability of no match
+	// indexed by number of nodes in the sample queues
+	// actually matched
+  	// tally of sample queues actually matched
+	// The tallies are 64-bit integers, so that they are
+	// exact past 2^53 samples.
+   private long actual[];
+	// also indexed by number of nodes in the sample queues
+	// actually matched
+	// expected number of nodes in the sample queues to be matched
+   private double expected[];
+	//************************************************************
+	// The template and the actual queue are packed into
+	// 64-bit words in a bit ring.
+	//************************************************************
+   private BitRing ring;
+	// incremental match automaton, built from the template
+   private TmplAuto auto;
+   private long done;            // #samples taken so far
+	// checkpoint file, or null, and #samples between
+	// checkpoints
+   private Ckpt ckpt;
+   private long every;
+   private SaveSrc ckSrc;        // source saved in each checkpoint
+   private ChiRpt rpt;           // interim reports, or null
+   private SeqTest seq;          // sequential test, or null
+   private int verdict;          // decision of the sequential test
+	// interim chi square, degrees of freedom, and number
+	// of sample queues tallied
+   private double lastChisq;
+   private int lastDf;
+   private long lastN;
+	// sample # of the next checkpoint, and of the next
+	// report, or Long.MAX_VALUE
+   private long ckNext;
+   private long rptNext;
+   private long lookNext;        // sample # of the next look
+	//************************************************************
+	// Progress of the sampling loop, for RateEvent and
+	// TmplStats, which read it from their own threads.
+	// The loop of takeSamples() writes progress at each
+	// event, at least every clockSteps samples.  The
+	// workers of runPar() add to parDone every clockSteps
+	// samples, from parBase, and their tallies, in
+	// parHist, are read racily until they are added into
+	// actual.  sampling is true while samples are taken.
+	//************************************************************
+   private volatile boolean sampling;
+   private volatile long progress;
+   private volatile LongAdder parDone;   // or null
+   private volatile long parHist[][];    // or null
+   private long parBase;
+   private Runnable rateHook;    // RateEvent hook, or null
+   private BitSrc runSrc;        // source of the samples
+   private long firstSample;     // sample # at the start of the loop
+   private long startTime;       // clock at the start of the loop
+
+	TmplEngine(int size, long samples, double prob)
+	   {
+		int i;
+		this.size    = size;
+		this.samples = samples;
+		this.prob    = prob;
+		sizePlus   = size + 1;
+		dblSamples = (double) samples;
+		actual   = new long[sizePlus];
+		expected = new double[sizePlus];
+		ring     = new BitRing(size);
+		done     = 0;
+		ckpt     = null;
+		ckSrc    = null;
+		every    = 0;
+		rpt      = null;
+		seq      = null;
+		verdict  = SeqTest.going;
+		//********************************************************
+		// initialize actual array
+		//********************************************************
+		for (i=0;i<sizePlus;i++)
+		   {
+			actual[i] = 0;
+			} // for each level of compare
+		calcExpected();
+		} // constructor
+
+   // Calculate array of expected matches for the
+	// number of samples
+
+   private void calcExpected()
+	   {
+		geometric(expected, dblSamples, prob);
+		} // calcExpected
+
+   // Fill expected[] with the expected matches of n
+	// sample queues, for each number of bits matched.
+	// Shared by TmplBank and TmplScan.
+
+   public static void geometric(double expected[], double n,
+	   double prob)
+	   {
+		int i;
+		double lgsmpl;
+		double lgprob;
+		double lgmatch;
+		double currProb;
+		//********************************************************
+		// Calculate array of expected matches
+		// prob is the chance of no match at each bit, so
+		// expected[i] = samples * prob * (1 - prob)^i
+		// The product is formed in log space, so that it
+		// does not underflow for a long template.
+		// For prob 0.5 it is samples * 0.5^(i+1), and
+		// Math.pow is exact, so the table is the same as
+		// the original test until it underflows.
+		//********************************************************
+		lgsmpl  = Math.log(n);
+		lgprob  = Math.log(prob);
+		lgmatch = Math.log(1.0 - prob);
+		for (i=0;i<expected.length;i++)
+		   {
+			currProb = 0.0;
+			if (prob == 0.5)
+			   {
+				currProb = Math.pow(prob, i + 1);
+				} // if original test
+			if (currProb >= Double.MIN_NORMAL)
+			   {
+			   expected[i] = currProb * n;
+				} // if no underflow
+			else
+			   {
+			   expected[i] = Math.exp(lgsmpl + lgprob + i * lgmatch);
+				} // else log space
+			} // for each expected #matches
+		} // geometric
+
+   // Generate three random seeds for etaus, and print them.
+	// The seeds are in parm[0] to parm[2].
+
+   public static int[] randomSeeds()
+	   {
+		int prm;
+		int parm[] = new int[8];   // etaus seeds
+		double frac;
+		PhaseEvent ev;
+		ev = Phase.begin("seeds", 0);
+		frac = Math.random();
+		prm = (int) (frac * 2000000000.0);
+		parm[0] = prm;
+		System.out.print("Seed 1 ");
+		System.out.println(Integer.toHexString(prm));
+		frac = Math.random();
+		prm = (int) (frac * 2000000000.0);
+		parm[1] = prm;
+		System.out.print("Seed 2 ");
+		System.out.println(Integer.toHexString(prm));
+		frac = Math.random();
+		prm = (int) (frac * 2000000000.0);
+		parm[2] = prm;
+		System.out.print("Seed 3 ");
+		System.out.println(Integer.toHexString(prm));
+		Phase.end(ev);
+		return(parm);
+		} // randomSeeds
+
+	// add a new bit to the head of the template queue
+
+   public void pushTemplate(int key)
+	   {
+		ring.pushTemplate(key);
+		} // pushTemplate
+
+   // add a new bit to the head of the sample queue
+	
+   public void pushActual(int key)
+	   {
+		ring.pushActual(key);
+		} // pushActual
+
+   // remove the least recently added bit
+	// from the tail of the template queue
+
+   public void popTemplate()
+	   {
+		ring.popTemplate();
+		} // popTemplate
+
+   // remove the least recently added bit
+	// from the tail of the sample queue
+
+   public void popActual()
+	   {
+		ring.popActual();
+		} // popActual
+
+   // Create a random template of zeros and ones.
+	// The template is a packed array of bits.
+  	// return zero if the template is built
+  	// return one  if the source ends first
+
+   public int bldTemplate(BitSrc src)
+	   {
+		int i;
+		PhaseEvent ev;
+		ev = Phase.begin("bldTemplate", size);
+		for (i=0;i<size;i++)
+		   {
+			int num;
+			num = src.nextBit(); // generate a zero or a one
+			if (num < 0)
+			   {
+				System.out.print("bldTemplate: ");
+				System.out.println("end of input");
+				Phase.end(ev);
+				return(1);
+				} // if end of input
+			pushTemplate(num);   // add to end of queue
+			} // for each node in the template queue
+		// build the match automaton once
+		auto = new TmplAuto(ring, actual);
+		Phase.end(ev);
+		return(0);
+		} // bldTemplate
+
+   // Write a checkpoint to ckpt every so many samples
+	// while taking samples.  src is the source that
+	// takeSamples() takes the samples from.
+
+   public void setCheckpoint(Ckpt ckpt, long every, SaveSrc src)
+	   {
+		this.ckpt  = ckpt;
+		this.every = every;
+		ckSrc = src;
+		} // setCheckpoint
+
+   // Write interim chi square reports to rpt while
+	// taking samples.
+
+   public void setReport(ChiRpt rpt)
+	   {
+		this.rpt = rpt;
+		} // setReport
+
+   // Stop taking samples as soon as the sequential test
+	// seq decides.
+
+   public void setSeqTest(SeqTest seq)
+	   {
+		this.seq = seq;
+		} // setSeqTest
+
+   // return the number of samples taken so far
+
+   public long samplesDone()
+	   {
+		return(done);
+		} // samplesDone
+
+   // number of bytes written by save()
+
+   public int saveSize()
+	   {
+		return(4 + 8 + 8 + 8 + sizePlus * 8 + ring.saveSize()
+		   + TmplAuto.saveSize);
+		} // saveSize
+
+   // write the state of the test to bb, for a checkpoint
+
+   public void save(ByteBuffer bb)
+	   {
+		bb.putInt(size);
+		bb.putLong(samples);
+		bb.putDouble(prob);
+		bb.putLong(done);
+		bb.asLongBuffer().put(actual);
+		bb.position(bb.position() + sizePlus * 8);
+		ring.save(bb);
+		auto.save(bb);
+		} // save
+
+   // Create an engine from the state in bb, as written
+	// by save().  The expected matches and the automaton
+	// tables are built again.
+	// return null if the state is not whole
+
+   public static TmplEngine load(ByteBuffer bb)
+	   {
+		int size;
+		long samples;
+		double prob;
+		TmplEngine eng;
+		size    = bb.getInt();
+		samples = bb.getLong();
+		prob    = bb.getDouble();
+		if (size < 1 || samples < 0 || !(prob > 0.0 && prob < 1.0))
+		   {
+			return(null);
+			} // if not a valid test
+		eng = new TmplEngine(size, samples, prob);
+		eng.done = bb.getLong();
+		bb.asLongBuffer().get(eng.actual);
+		bb.position(bb.position() + eng.sizePlus * 8);
+		if (eng.ring.load(bb) != 0)
+		   {
+			return(null);
+			} // if ring of another size
+		eng.auto = new TmplAuto(eng.ring, eng.actual);
+		eng.auto.load(bb);
+		return(eng);
+		} // load
+
+   // for debugging, print the template queue
+
+   public void showTemplate()
+	   {
+		int i;
+		System.out.println("showTemplate");
+		if (ring.tmplCount() == 0)
+		   {
+			System.out.print("showTemplate: ");
+			System.out.println("empty queue");
+			return;
+			} // if empty template
+		for (i=0;i<ring.tmplCount();i++)
+		   {
+			System.out.println((i + 1) + ". " + ring.getTemplate(i));
+			} // for each bit in template
+		} // showTemplate
+
+   // Create a random sample queue of zeros and ones.
+	// The sample queue is a ring of packed bits.
+  	// return zero if the sample queue is built
+  	// return one  if the source ends first
+
+   public int bldActual(BitSrc src)
+	   {
+		int i;
+		PhaseEvent ev;
+		ev = Phase.begin("bldActual", size);
+		for (i=0;i<size;i++)
+		   {
+			int num;
+			num = src.nextBit(); // generate a zero or a one
+			if (num < 0)
+			   {
+				System.out.print("bldActual: ");
+				System.out.println("end of input");
+				Phase.end(ev);
+				return(1);
+				} // if end of input
+			pushActual(num);     // add to end of queue
+			auto.step(num);      // start an alignment
+			} // for each node in the template queue
+		Phase.end(ev);
+		return(0);
+		} // bldActual
+
+   // for debugging, print the sample queue
+
+   public void showActual()
+	   {
+		int i;
+		System.out.println("showActual");
+		if (ring.actCount() == 0)
+		   {
+			System.out.print("showActual: ");
+			System.out.println("empty queue");
+			return;
+			} // if empty sample queue
+		for (i=0;i<ring.actCount();i++)
+		   {
+			System.out.println((i + 1) + ". " + ring.getActual(i));
+			} // for each bit in sample queue
+		} // showActual
+
+   // count the number of matches, left to right, of
+	// the sample queue against the template queue
+	// return the actual number of matches in the
+	// least recent tail of the queue
+  	// If the number of matches, left to right,
+  	// is the size of the template, then a wrap-around
+	// error is generated.
+
+   public int match()
+		{
+		int tally;    // number of continuous matches left to right
+		// match from tail to head
+		if (ring.actCount() == 0)
+		   {
+			System.out.print("match: ");
+			System.out.println("empty actual queue");
+			return(0);
+			} // if empty actual queue
+		if (ring.tmplCount() == 0)
+		   {
+			System.out.print("match: ");
+			System.out.println("empty template queue");
+			return(0);
+			} // if empty template queue
+		// compare 64 bits at a time
+		tally = ring.match();
+  		if (tally >= size)
+  		   {
+  			System.out.print("match: ");
+  			System.out.println("wrap-around error");
+  			} // if wrap-around error
+		return(tally);   // #matches left to right
+	   } // match
+
+   // generate the rolling sample queues.
+	// pop the least recent sample
+	// push the newest sample from src
+	// match the new queue
+	// Each program calls this with one kind of source, so
+	// the JIT compiler inlines src.nextBit() in the loop.
+	// If the source ends first, the test is over, and the
+	// expected matches are for the samples taken.
+	// The samples start after those already taken, so a
+	// test loaded from a checkpoint goes on from there.
+	// If a checkpoint file is set, a checkpoint is written
+	// every so many samples.  If a report file is set, an
+	// interim chi square is written as the run goes on.
+	// If a sequential test is set, the chi square is looked
+	// at as the run goes on, and the run stops as soon as
+	// the test decides.  The chi square report is then for
+	// the samples taken.
+	// These are events, handled outside of the sampling
+	// loop.  The loop only compares the sample # against
+	// the sample # of the next event.  At least every
+	// clockSteps samples, an event publishes the
+	// progress of the loop for RateEvent.
+  	// return zero if no wrap-around error
+  	// return one  if    wrap-around error
+
+   public int takeSamples(BitSrc src)
+	   {
+		long i;
+		long tick;          // sample # of the next event
+		int num;
+		int count = 0;
+		int status;
+		PhaseEvent ev;
+		ev = Phase.begin("takeSamples", size);
+		runSrc      = src;
+		firstSample = done;
+		startTime   = System.nanoTime();
+		progress    = done;
+		sampling    = true;
+		rateHook    = Phase.watch(this, size);
+		ckNext  = Long.MAX_VALUE;
+		rptNext = Long.MAX_VALUE;
+		if (ckpt != null)
+		   {
+			ckNext = done + every;
+			} // if checkpoints
+		if (rpt != null && rpt.every() > 0)
+		   {
+			rptNext = done + rpt.every();
+			} // if reports by #samples
+		lookNext = Long.MAX_VALUE;
+		if (seq != null)
+		   {
+			lookNext = seq.nextLook(done);
+			} // if sequential test
+		tick = nextTick();
+		for (i=done;i<samples;i++)
+		   {
+			if (i == tick)
+			   {
+				done = i;
+				tick = event();
+				if (verdict != SeqTest.going) break;
+				} // if time for an event
+			num = src.nextBit();
+			if (num < 0) break;
+		   popActual();
+		   pushActual(num);
+			// tally the sample queues that end at this bit
+			if (auto.step(num) != 0)
+			   {
+				System.out.print("match: ");
+				System.out.println("wrap-around error");
+				System.out.print("Sample # ");
+				System.out.println(i + 1);
+				count = size;
+				break;
+				} // if wrap-around error
+			} // for each sample queue
+		done = i;
+		progress = done;
+		sampling = false;
+		Phase.unwatch(rateHook);
+		rateHook = null;
+		if (verdict != SeqTest.going)
+		   {
+			// the expected matches are for the samples taken
+			samples    = i;
+			dblSamples = (double) samples;
+			calcExpected();
+			} // if sequential test decided
+		else if (i < samples && count < size)
+		   {
+			endInput(i);
+			} // else if end of input
+		// remove queues past the last sample
+		auto.trim(ring);
+		// the last report, unless a report of the loop is
+		// already at this sample, as when the sequential
+		// test stops at a look that is also a report
+		if (rpt != null && rpt.last() != done)
+		   {
+			report();
+			} // if reports
+		if (seq != null && count < size)
+		   {
+			if (verdict == SeqTest.going)
+			   {
+				// the last look, at the end of the test
+				interim();
+				verdict = seq.look(done, lastN, lastChisq, lastDf);
+				} // if no decision yet
+			seq.print(verdict, done);
+			} // if sequential test
+  		status = 0;
+      if (count >= size)
+         {
+         status = 1;
+         } // if wrap-around error
+		Phase.end(ev);
+  		return(status);
+		} // takeSamples
+
+   // return the sample # of the next event
+	// There is an event at least every clockSteps
+	// samples, to publish the progress of the loop and,
+	// for reports by time, to read the clock.
+
+   private long nextTick()
+	   {
+		long tick;
+		tick = Math.min(Math.min(ckNext, rptNext), lookNext);
+		return(Math.min(tick, done + clockSteps));
+		} // nextTick
+
+   // Write a checkpoint, or a report, or both, if due
+	// after done samples.
+	// return the sample # of the next event
+
+   private long event()
+	   {
+		progress = done;
+		if (done == ckNext)
+		   {
+			ckpt.write(this, ckSrc);
+			ckNext = done + every;
+			} // if checkpoint due
+		if (done == rptNext)
+		   {
+			report();
+			rptNext = done + rpt.every();
+			} // if report due by #samples
+		else if (rpt != null && rpt.timeDue())
+		   {
+			report();
+			} // else if report due by time
+		if (done == lookNext)
+		   {
+			interim();
+			verdict = seq.look(done, lastN, lastChisq, lastDf);
+			lookNext = seq.nextLook(done);
+			} // if look due
+		return(nextTick());
+		} // event
+
+   // Write an interim chi square report.
+
+   private void report()
+	   {
+		interim();
+		rpt.line(done, lastChisq, lastDf);
+		} // report
+
+   // Calculate the interim chi square, into lastChisq,
+	// lastDf and lastN.
+	// The sample queues tallied so far are those whose
+	// match has ended, a few less than the samples
+	// taken.  The expected tallies are for that number
+	// of queues, with the same classes as calcChisq().
+	// The cost is one pass over the tallies, once per
+	// report or look, and nothing per sample.
+
+   private void interim()
+	   {
+		double chi[] = new double[2];
+		lastN     = chisqOf(actual, chi);
+		lastChisq = chi[0];
+		lastDf    = (int) chi[1];
+		} // interim
+
+   // Calculate the chi square of the tallies in act[],
+	// into chi[0], and its degrees of freedom, into chi[1]
+	// The classes are those of interim().  Until two
+	// classes are large enough, the degrees of freedom
+	// are zero, and the chi square means nothing.
+	// return the number of sample queues tallied
+
+   private long chisqOf(long act[], double chi[])
+	   {
+		int i;
+		int df;             // degrees of freedom
+		long n;             // #sample queues tallied
+		double e;           // expected tally
+		double diff;        // actual - expected
+		double chisq;       // chi square statistic
+		n = 0;
+		for (i=0;i<sizePlus;i++)
+		   {
+			n += act[i];
+			} // for each level of compare
+		chisq = 0.0;
+		df    = 0;
+		i = 0;
+		while (i < size && n > 0)
+		   {
+			e = expected[i] / dblSamples * n;
+			if (e < 10.0) break;
+			diff  = act[i] - e;
+			chisq = chisq + diff * diff / e;
+			df = df + 1;
+			i  = i + 1;
+			} // for each expected >= 10.0
+		chi[0] = chisq;
+		chi[1] = Math.max(df - 1, 0);
+		return(n);
+		} // chisqOf
+
+   // The input ended after n samples, fewer than asked for.
+	// The expected matches are for the samples taken.
+
+   private void endInput(long n)
+	   {
+		System.out.print("End of input after ");
+		System.out.print(n);
+		System.out.println(" samples");
+		samples    = n;
+		dblSamples = (double) samples;
+		calcExpected();
+		} // endInput
+
+   // Take the samples on several cores at the same time.
+	// The samples are split evenly among the workers.
+	// Each worker has its own source of bits, its own
+	// sample queue and its own tally.  The tallies are
+	// added into the actual array.
+	// src is the source that built the template, started
+	// with the seeds in seed[].  The source of each worker
+	// is src.sub(), on a substream of the same etaus stream.
+	// Each substream starts where the one before it ends,
+	// so the whole run uses one etaus stream with no overlap.
+	// If report is true, print the throughput of each worker.
+  	// return zero if no wrap-around error
+  	// return one  if    wrap-around error
+
+   public int takeSamplesPar(SplitSrc src, int seed[], int workers,
+	   boolean report)
+	   {
+		int w;
+		long base;
+		long bases[]  = new long[workers];
+		long counts[] = new long[workers];
+		//********************************************************
+		// Split the samples among the workers.
+		// The generator of src used 16387 outputs to fill its
+		// state array, and the outputs for the template bits.
+		// Each worker uses as many, plus the outputs for
+		// its samples.
+		//********************************************************
+		base = 16387 + src.outputs(size);
+		for (w=0;w<workers;w++)
+		   {
+			counts[w] = samples / workers;
+			if (w < samples % workers)
+			   {
+				counts[w] = counts[w] + 1;
+				} // if one more sample
+			bases[w] = base;
+			base = base + 16387 + src.outputs(size + counts[w]);
+			} // for each worker
+		return(runPar(src, seed, bases, counts, workers, report));
+		} // takeSamplesPar
+
+   // Take the samples of a file on several cores at the
+	// same time, through a memory map.
+	// The result is the same as takeSamples() on a
+	// StreamSrc of the same file.
+	// In the sequential scan, the first sample queue is
+	// bits 0 to size-1 of the input, and is not tallied.
+	// Sample k is the queue of bits k to k+size-1.
+	// The samples are split into chunks of consecutive
+	// samples.  A chunk of the samples a to b-1 reads
+	// the bits a-1 to b+size-2.  Its first queue starts at
+	// bit a-1 and is not tallied, like the first queue of
+	// the whole scan, so the next size-1 bits of the window
+	// are carried across the edge of the chunk.  Each
+	// chunk overlaps the next by size bits.
+	// Each chunk is mapped separately, and a map holds at
+	// most 2^31-1 bytes, so there may be more chunks than
+	// workers.
+	// If report is true, print the throughput of each chunk.
+  	// return zero if no wrap-around error
+  	// return one  if    wrap-around error
+
+   public int takeSamplesMap(MappedSrc src, int workers,
+	   boolean report)
+	   {
+		int w;
+		int chunks;
+		int status;
+		long n;
+		long base;
+		long bases[];
+		long counts[];
+		// most samples in one map, with room for the queue
+		long maxChunk = 1L << 33;
+		//********************************************************
+		// The number of samples is the number asked for, or
+		// as many as the input holds.
+		//********************************************************
+		if (src.bitCount() < size)
+		   {
+			System.out.print("bldActual: ");
+			System.out.println("end of input");
+			return(1);
+			} // if no whole sample queue
+		n = Math.min(samples, src.bitCount() - size);
+		chunks = (int) Math.max((long) workers,
+		   (n + maxChunk - 1) / maxChunk);
+		bases  = new long[chunks];
+		counts = new long[chunks];
+		base = 0;
+		for (w=0;w<chunks;w++)
+		   {
+			counts[w] = n / chunks;
+			if (w < n % chunks)
+			   {
+				counts[w] = counts[w] + 1;
+				} // if one more sample
+			bases[w] = base;
+			base = base + counts[w];
+			} // for each chunk
+		status = runPar(src, null, bases, counts, workers, report);
+		if (n < samples && status == 0)
+		   {
+			endInput(n);
+			} // if end of input
+		return(status);
+		} // takeSamplesMap
+
+   // Run one TmplTask for each substream, on a pool of
+	// workers, and add the tallies into the actual array.
+	// The source of substream w is src.sub(seed, bases[w]),
+	// and it takes counts[w] samples.
+  	// return zero if no wrap-around error
+  	// return one  if    wrap-around error
+
+   private int runPar(SplitSrc src, int seed[], long bases[],
+	   long counts[], int workers, boolean report)
+	   {
+		int i;
+		int w;
+		int status;
+		int tasks = bases.length;
+		long nanos[]  = new long[tasks];
+		long done[]   = new long[tasks];
+		int stat[]    = new int[tasks];
+		long hist[];
+		long total;
+		ForkJoinPool pool;
+		PhaseEvent ev;
+		ev = Phase.begin("takeSamples", size);
+		runSrc      = src;
+		firstSample = this.done;
+		startTime   = System.nanoTime();
+		parBase     = this.done;
+		parHist     = new long[tasks][];
+		parDone     = new LongAdder();
+		sampling    = true;
+		rateHook    = Phase.watch(this, size);
+		pool = new ForkJoinPool(workers);
+		hist = pool.invoke(new TmplTask(ring, auto, src, seed, bases,
+		   counts, nanos, done, stat, parDone, parHist, 0, tasks));
+		pool.shutdown();
+		//********************************************************
+		// Publish the end of the run.  A reader that comes
+		// in between may see a few tallies missing, but
+		// never counted twice.
+		//********************************************************
+		total = this.done;
+		for (w=0;w<tasks;w++)
+		   {
+			total = total + done[w];
+			} // for each worker
+		this.done = total;
+		progress  = total;
+		parDone   = null;
+		parHist   = null;
+		for (i=0;i<sizePlus;i++)
+		   {
+			actual[i] += hist[i];
+			} // for each level of compare
+		sampling = false;
+		Phase.unwatch(rateHook);
+		rateHook = null;
+		status = 0;
+		for (w=0;w<tasks;w++)
+		   {
+			if (report)
+			   {
+				System.out.printf("Worker %3d  ", w);
+				System.out.printf("%12d samples  ", done[w]);
+				System.out.printf("%10.4f seconds  ", nanos[w] / 1.0e9);
+				System.out.printf("%12.0f samples/s\n",
+				   done[w] / (nanos[w] / 1.0e9));
+				} // if report throughput
+			if (stat[w] != 0)
+			   {
+				status = 1;
+				} // if wrap-around error
+			} // for each worker
+		Phase.end(ev);
+		return(status);
+		} // runPar
+
+   // return true while the samples are being taken
+
+   public boolean sampling()
+	   {
+		return(sampling);
+		} // sampling
+
+   // return the number of samples taken, as of the last
+	// event of the sampling loop, or the sum of the
+	// workers' counts
+
+   public long progress()
+	   {
+		LongAdder pd;
+		pd = parDone;
+		if (pd != null)
+		   {
+			return(parBase + pd.sum());
+			} // if workers running
+		return(progress);
+		} // progress
+
+   // return the sample # and the clock at the start of
+	// the sampling loop
+
+   public long firstSample()
+	   {
+		return(firstSample);
+		} // firstSample
+
+   public long startTime()
+	   {
+		return(startTime);
+		} // startTime
+
+   // return the number of generator outputs for n
+	// samples of the sampling loop
+
+   public long outputs(long n)
+	   {
+		return(runSrc.outputs(n));
+		} // outputs
+
+   // return the number of samples in the test
+
+   public long samples()
+	   {
+		return(samples);
+		} // samples
+
+   // return the number of tallies, one for each number of
+	// bits matched
+
+   public int tallies()
+	   {
+		return(sizePlus);
+		} // tallies
+
+   // Copy the tallies into act[], of tallies() members, and
+	// calculate their interim chi square into chi[0] and
+	// its degrees of freedom into chi[1], as interim() does.
+	// For TmplStats.  Read from another thread while the
+	// loop runs, the copy is racy: the tallies may be a
+	// few samples apart, and the loop is not slowed.
+	// return the number of sample queues tallied
+
+   public long snapshot(long act[], double chi[])
+	   {
+		tally(act);
+		return(chisqOf(act, chi));
+		} // snapshot
+
+   // copy the tallies into act[], of tallies() members,
+	// with those of the workers while they run
+
+   private void tally(long act[])
+	   {
+		int i;
+		int w;
+		long ph[][];
+		long h[];
+		ph = parHist;
+		System.arraycopy(actual, 0, act, 0, sizePlus);
+		if (ph == null) return;
+		for (w=0;w<ph.length;w++)
+		   {
+			h = ph[w];
+			if (h == null) continue;
+			for (i=0;i<sizePlus;i++)
+			   {
+				act[i] += h[i];
+				} // for each level of compare
+			} // for each worker
+		} // tally
+
+   // return the mean number of bits matched by the
+	// sample queues tallied so far
+	// Read from another thread while the loop runs, the
+	// tallies may be a few samples apart.
+
+   public double meanMatch()
+	   {
+		int i;
+		long n;
+		double sum;
+		long act[] = new long[sizePlus];
+		tally(act);
+		n   = 0;
+		sum = 0.0;
+		for (i=0;i<sizePlus;i++)
+		   {
+			n   += act[i];
+			sum += (double) i * act[i];
+			} // for each level of compare
+		if (n == 0) return(0.0);
+		return(sum / n);
+		} // meanMatch
+
+   // Print the heading on the chi square report.
+	// title and source are the first two lines,
+	// already centered.
+	// The first column is the # of matches
+
+   public void printHeading(String title, String source)
+	   {
+		System.out.println();
+		System.out.print("            ");
+		System.out.println(title);
+		System.out.print("            ");
+		System.out.println(source);
+		System.out.println();
+		System.out.print("Matches  ");
+		System.out.print("  Actual      ");
+		System.out.print("  Expected  ");
+		System.out.print("  Difference    ");
+		System.out.println("Chi Square");
+		} // printHeading
+
+   // Calculate the chi square of actual nodes matched
+
+   public void calcChisq()
+	   {
+		int i;
+		double df;          // degrees of freedom
+		double chisq;       // chi square statistic
+		double diff;        // actual - expected
+		double diffsq;      // difference squared
+		PhaseEvent ev;
+		ev = Phase.begin("calcChisq", size);
+		// initialize totals
+		chisq = 0.0;
+		df    = 0.0;
+		// a valid chi square test has ten or more
+		// expected tallies
+		// a match of the whole template is a wrap-around
+		// error, not a tally
+		i = 0;
+		while (i < size && expected[i] >= 10.0)
+		   {
+			diff = actual[i] - expected[i];
+			diffsq = diff * diff;
+			chisq = chisq + (diffsq / expected[i]);
+			System.out.printf("%5d  ", i);
+			System.out.printf("%10d  ", actual[i]);
+			System.out.printf("%14.4f  ", expected[i]);
+			System.out.printf("%12.4f  ", diff);
+			System.out.printf("%10.4f\n", chisq);
+			df = df + 1.0;
+			i = i + 1;
+			} // for each expected >= 10.0
+		df = df - 1.0;
+		System.out.println();
+		System.out.printf("Chi square %10.4f\n", chisq);
+		System.out.printf("Degrees of freedom %4.0f\n", df);
+		Phase.end(ev);
+		} // calcChisq
+
+	} // class TmplEngine
@@ -0,0 +1,7 @@
+CC=javac
+
+TmplEngine.class:					TmplEngine.java
+			$(CC) TmplEngine.java
+
+clean:
+			rm -f TmplEngine.class
@@ -0,0 +1,590 @@
+// TmplScan.java - Stride and block modes of the template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class runs two more modes of the template test.
+// In TmplEngine, each sample queue starts one bit after
+// the one before it.
+// In stride mode, each sample window starts stride bits
+// after the one before it.  With a stride of the template
+// size or more, the windows do not overlap, so their
+// tallies are independent.  The number of matches of
+// each window has the same distribution as in TmplEngine,
+// prob^(i+1), and the test is the same chi square.
+// In block mode, the stream is cut into blocks of the
+// given number of bits, and the occurrences of the
+// template in each block are counted, including those
+// that overlap each other.  The template is short here,
+// such as 9 bits, as in the NIST template tests.  The
+// distribution of the count is found exactly, for the
+// template in use, by running the Knuth-Morris-Pratt
+// automaton of the template over all blocks of random
+// bits at once, one bit at a time, as a table of the
+// chance of each state and count.  A periodic template,
+// such as all ones, has clumps of occurrences, and the
+// table accounts for them.
+// The bits are read 64 at a time with BitSrc.nextBits()
+// into a buffer of 64-bit words.  A window is matched
+// with the kernel of BitRing, 64 bits or a vector at a
+// time, with XOR and numberOfTrailingZeros.
+// In a block, 64 start positions are tested at once, one
+// per bit of a word: each bit of the template clears the
+// positions whose stream bit differs from it, and the
+// positions left are counted with bitCount.
+//**********************************************************
+
+import java.util.Arrays;
+
+public class TmplScan
+   {
+
+	// #bits read from the source at a time
+   private static final int stageBits = 1 << 16;
+
+   private int size;             // size of template and window
+   private int words;            // #64-bit words in the template
+   private long samples;         // #windows or #blocks in test
+   private double dblSamples;
+   private double prob;          // probability of no match
+   private int stride;           // #bits between windows, or 0
+   private int block;            // #bits in each block, or 0
+   private long tmpl[];          // template, oldest bit in bit 0
+	// tmask[k] is all ones if template bit k is one,
+	// all zeros otherwise
+   private long tmask[];
+	// stride mode: indexed by number of bits matched
+	// block mode: indexed by count of occurrences, and the
+	// last is all counts of cap or more
+   private long actual[];
+   private double expected[];
+   private double dist[];        // chance of each count, block mode
+   private int cap;              // last count tallied, block mode
+	//************************************************************
+	// Buffer of stream bits.  Bit pos of buf[] is the first
+	// bit of the next window or block, and have bits are
+	// in the buffer.  have is a whole number of words until
+	// the end of the input.
+	//************************************************************
+   private long buf[];
+   private long stage[];
+   private int capBits;          // #bits that fit in buf[]
+   private int pos;
+   private int have;
+   private boolean eof;
+   private MatchKernel kernel;   // kernel of the window match
+
+	// With block zero, run in stride mode.
+	// Otherwise, run in block mode, with blocks of block
+	// bits, which is the template size or more.
+
+	TmplScan(int size, long samples, double prob, int stride,
+	   int block)
+	   {
+		int need;
+		this.size    = size;
+		this.samples = samples;
+		this.prob    = prob;
+		this.stride  = stride;
+		this.block   = block;
+		dblSamples = (double) samples;
+		words      = (size + 63) >>> 6;
+		tmpl       = new long[words];
+		tmask      = new long[size];
+		need = (block > 0) ? block : size;
+		capBits = ((((need + 63) >>> 6) + 1) << 6) + stageBits;
+		// two more words for the reads past the last bit
+		buf   = new long[(capBits >>> 6) + 2];
+		stage = new long[stageBits >>> 6];
+		pos   = 0;
+		have  = 0;
+		eof   = false;
+		kernel = BitRing.kernel();
+		if (block == 0)
+		   {
+			actual   = new long[size + 1];
+			expected = new double[size + 1];
+			calcExpected();
+			} // if stride mode
+		} // constructor
+
+   // Create a random template of zeros and ones.
+	// In block mode, find the distribution of the count.
+  	// return zero if the template is built
+  	// return one  if the source ends first
+
+   public int bldTemplate(BitSrc src)
+	   {
+		int i;
+		int num;
+		PhaseEvent ev;
+		ev = Phase.begin("bldTemplate", size);
+		for (i=0;i<size;i++)
+		   {
+			num = src.nextBit(); // generate a zero or a one
+			if (num < 0)
+			   {
+				System.out.print("bldTemplate: ");
+				System.out.println("end of input");
+				Phase.end(ev);
+				return(1);
+				} // if end of input
+			tmpl[i >>> 6] |= (long) (num & 1) << (i & 63);
+			tmask[i] = -(long) (num & 1);
+			} // for each bit in the template
+		if (block > 0)
+		   {
+			bldDist();
+			actual   = new long[cap + 1];
+			expected = new double[cap + 1];
+			calcExpected();
+			} // if block mode
+		Phase.end(ev);
+		return(0);
+		} // bldTemplate
+
+   //***********************************************************
+	// Find dist[c], the chance of c occurrences of the
+	// template in a block of random bits.
+	// delta[2*q+b] is the next state of the automaton after
+	// state q and bit b.  State q is the number of template
+	// bits matched.  On reaching state size, the count goes
+	// up by one, and the state size goes on like its
+	// longest border, so overlapping occurrences count.
+	// p[c*(size+1)+q] is the chance of state q with count c
+	// after each bit.  Counts above cap are kept in cap.
+	// cap is well above the mean count, with room for the
+	// clumps of a periodic template.  Only the counts with
+	// a chance of 1e-40 or more are carried, which is all
+	// that a test of up to 2^63 blocks can see, so the
+	// work per bit is the width of the distribution, not
+	// cap.
+	//***********************************************************
+
+   private void bldDist()
+	   {
+		int i;
+		int q;
+		int b;
+		int c;
+		int x;
+		int nq;
+		int nc;
+		int w;
+		int lo;             // least count with any chance
+		int hi;             // most count with any chance
+		int nlo;
+		int nhi;
+		int delta[];
+		double tiny = 1.0e-40;
+		double mu;
+		double pq;
+		double p[];
+		double np[];
+		double tmp[];
+		//********************************************************
+		// Knuth-Morris-Pratt automaton
+		//********************************************************
+		delta = new int[2 * (size + 1)];
+		x = 0;
+		for (q=0;q<=size;q++)
+		   {
+			for (b=0;b<2;b++)
+			   {
+				if (q < size && bit(q) == b)
+				   {
+					delta[2*q+b] = q + 1;
+					} // if template bit q is b
+				else if (q == 0)
+				   {
+					delta[2*q+b] = 0;
+					} // else if no match
+				else
+				   {
+					delta[2*q+b] = delta[2*x+b];
+					} // else as the longest border
+				} // for each bit value
+			if (q > 0 && q < size)
+			   {
+				x = delta[2*x+bit(q)];
+				} // if longest border grows
+			} // for each state
+		//********************************************************
+		// Chance of each state and count, bit by bit
+		//********************************************************
+		mu  = (block - size + 1) / Math.pow(2.0, size);
+		cap = (int) Math.min((double) (block - size + 1),
+		   Math.ceil(mu + 10.0 * Math.sqrt(mu * size) + 20.0));
+		w   = size + 1;
+		p   = new double[(cap + 1) * w];
+		np  = new double[(cap + 1) * w];
+		p[0] = 1.0;
+		lo = 0;
+		hi = 0;
+		for (i=0;i<block;i++)
+		   {
+			Arrays.fill(np, lo * w, (Math.min(hi + 1, cap) + 1) * w, 0.0);
+			nlo = cap;
+			nhi = 0;
+			for (c=lo;c<=hi;c++)
+			   {
+				for (q=0;q<=size;q++)
+				   {
+					pq = p[c*w+q];
+					if (pq < tiny) continue;
+					for (b=0;b<2;b++)
+					   {
+						nq = delta[2*q+b];
+						nc = c;
+						if (nq == size && nc < cap) nc = nc + 1;
+						np[nc*w+nq] += 0.5 * pq;
+						if (nc < nlo) nlo = nc;
+						if (nc > nhi) nhi = nc;
+						} // for each bit value
+					} // for each state
+				} // for each count
+			tmp = p;
+			p   = np;
+			np  = tmp;
+			lo  = nlo;
+			hi  = nhi;
+			} // for each bit of the block
+		dist = new double[cap + 1];
+		for (c=lo;c<=hi;c++)
+		   {
+			for (q=0;q<=size;q++)
+			   {
+				dist[c] += p[c*w+q];
+				} // for each state
+			} // for each count
+		} // bldDist
+
+   // return bit k of the template
+
+   private int bit(int k)
+	   {
+		return((int) (tmpl[k >>> 6] >>> (k & 63)) & 1);
+		} // bit
+
+   // Calculate array of expected tallies for the
+	// number of samples
+
+   private void calcExpected()
+	   {
+		int c;
+		if (block == 0)
+		   {
+			TmplEngine.geometric(expected, dblSamples, prob);
+			return;
+			} // if stride mode
+		for (c=0;c<=cap;c++)
+		   {
+			expected[c] = dist[c] * dblSamples;
+			} // for each count
+		} // calcExpected
+
+   // Read bits from src until the buffer holds need bits
+	// from bit pos.  The words before pos are dropped
+	// first.
+	// return false if the input ends first
+
+   private boolean ensure(BitSrc src, int need)
+	   {
+		int w0;
+		int n;
+		int got;
+		if (pos + need <= have) return(true);
+		w0 = pos >>> 6;
+		if (w0 > 0)
+		   {
+			n = ((have + 63) >>> 6) - w0;
+			System.arraycopy(buf, w0, buf, 0, n);
+			pos  = pos  - (w0 << 6);
+			have = have - (w0 << 6);
+			} // if words to drop
+		while (pos + need > have && !eof)
+		   {
+			n = Math.min(stageBits, capBits - have);
+			got = src.nextBits(stage, n);
+			System.arraycopy(stage, 0, buf, have >>> 6, (got + 63) >>> 6);
+			have = have + got;
+			if (got < n) eof = true;
+			} // while more bits needed
+		return(pos + need <= have);
+		} // ensure
+
+   // Move on n bits.  Bits past the buffer are read
+	// and dropped.
+
+   private void skip(BitSrc src, int n)
+	   {
+		int k;
+		int got;
+		long gap;
+		pos = pos + n;
+		if (pos <= have) return;
+		gap  = pos - have;
+		pos  = 0;
+		have = 0;
+		while (gap > 0 && !eof)
+		   {
+			k = (int) Math.min((long) stageBits, gap);
+			got = src.nextBits(stage, k);
+			if (got < k) eof = true;
+			gap = gap - got;
+			} // while bits to drop
+		} // skip
+
+   // return 64 bits of the buffer starting at bit p
+
+   private long bitsAt(int p)
+	   {
+		int wrd;
+		int shft;
+		wrd  = p >>> 6;
+		shft = p & 63;
+		return((buf[wrd] >>> shft) | ((buf[wrd+1] << 1) << (63 - shft)));
+		} // bitsAt
+
+   // count the number of matches, left to right, of
+	// the window at pos against the template, with the
+	// kernel of BitRing, 64 bits or a vector at a time
+
+   private int match()
+	   {
+		return(kernel.match(buf, pos, tmpl, size));
+		} // match
+
+   // count the occurrences of the template that lie
+	// wholly in the block at pos, 64 start positions
+	// at a time
+
+   private int count()
+	   {
+		int k;
+		int p;
+		int last;
+		int lanes;
+		int n;
+		long m;
+		last = pos + block - size;
+		n = 0;
+		for (p=pos;p<=last;p+=64)
+		   {
+			lanes = last - p + 1;
+			m = (lanes >= 64) ? -1L : (1L << lanes) - 1;
+			for (k=0;k<size && m != 0L;k++)
+			   {
+				m &= ~(bitsAt(p + k) ^ tmask[k]);
+				} // for each template bit
+			n = n + Long.bitCount(m);
+			} // for each 64 start positions
+		return(n);
+		} // count
+
+   // take the samples, one window or one block at a time
+	// If the source ends first, the test is over, and the
+	// expected tallies are for the samples taken.
+  	// return zero if no wrap-around error
+  	// return one  if    wrap-around error
+
+   public int takeSamples(BitSrc src)
+	   {
+		long i;
+		int len;
+		int status;
+		PhaseEvent ev;
+		ev = Phase.begin("takeSamples", size);
+		status = 0;
+		for (i=0;i<samples;i++)
+		   {
+			if (block > 0)
+			   {
+				if (!ensure(src, block)) break;
+				actual[Math.min(count(), cap)]++;
+				pos = pos + block;
+				} // if block mode
+			else
+			   {
+				if (!ensure(src, size)) break;
+				len = match();
+				if (len >= size)
+				   {
+					System.out.print("match: ");
+					System.out.println("wrap-around error");
+					System.out.print("Sample # ");
+					System.out.println(i + 1);
+					status = 1;
+					break;
+					} // if wrap-around error
+				actual[len]++;
+				skip(src, stride);
+				} // else stride mode
+			} // for each sample
+		if (status == 0 && i < samples)
+		   {
+			System.out.print("End of input after ");
+			System.out.print(i);
+			System.out.println(" samples");
+			samples    = i;
+			dblSamples = (double) samples;
+			calcExpected();
+			} // if end of input
+		Phase.end(ev);
+		return(status);
+		} // takeSamples
+
+   // Print the heading on the chi square report.
+	// title and source are the first two lines,
+	// already centered.
+	// The first column is the # of matches, or in block
+	// mode the # of occurrences in a block.
+
+   public void printHeading(String title, String source)
+	   {
+		System.out.println();
+		System.out.print("            ");
+		System.out.println(title);
+		System.out.print("            ");
+		System.out.println(source);
+		System.out.print("            ");
+		if (block > 0)
+		   {
+			System.out.println("   Blocks of " + block + " bits");
+			} // if block mode
+		else
+		   {
+			System.out.println("   Stride " + stride + " bits");
+			} // else stride mode
+		System.out.println();
+		if (block > 0)
+		   {
+			System.out.print("  Count  ");
+			} // if block mode
+		else
+		   {
+			System.out.print("Matches  ");
+			} // else stride mode
+		System.out.print("  Actual      ");
+		System.out.print("  Expected  ");
+		System.out.print("  Difference    ");
+		System.out.println("Chi Square");
+		} // printHeading
+
+   // Calculate the chi square.
+	// In stride mode, the classes are those of TmplEngine.
+	// In block mode, the classes are the counts with ten
+	// or more expected tallies.  The counts below them
+	// are added into the first class, and those above
+	// them into the last.
+
+   public void calcChisq()
+	   {
+		int i;
+		int lo;
+		int hi;
+		int df;
+		long a;
+		double e;
+		double diff;
+		double chisq;
+		PhaseEvent ev;
+		ev = Phase.begin("calcChisq", size);
+		chisq = 0.0;
+		df    = 0;
+		lo    = 0;
+		hi    = -1;
+		if (block > 0)
+		   {
+			for (i=0;i<=cap;i++)
+			   {
+				if (expected[i] >= 10.0)
+				   {
+					if (hi < 0) lo = i;
+					hi = i;
+					} // if a class
+				} // for each count
+			} // if block mode
+		else
+		   {
+			while (hi + 1 < size && expected[hi + 1] >= 10.0)
+			   {
+				hi = hi + 1;
+				} // for each expected >= 10.0
+			} // else stride mode
+		for (i=lo;i<=hi;i++)
+		   {
+			a = actual[i];
+			e = expected[i];
+			if (block > 0 && i == lo)
+			   {
+				a = sumActual(0, lo);
+				e = sumExpected(0, lo);
+				} // if first class
+			if (block > 0 && i == hi && hi > lo)
+			   {
+				a = sumActual(hi, cap);
+				e = sumExpected(hi, cap);
+				} // if last class
+			diff  = a - e;
+			chisq = chisq + diff * diff / e;
+			System.out.printf("%5d  ", i);
+			System.out.printf("%10d  ", a);
+			System.out.printf("%14.4f  ", e);
+			System.out.printf("%12.4f  ", diff);
+			System.out.printf("%10.4f\n", chisq);
+			df = df + 1;
+			} // for each class
+		df = df - 1;
+		System.out.println();
+		System.out.printf("Chi square %10.4f\n", chisq);
+		System.out.printf("Degrees of freedom %4d\n", df);
+		System.out.printf("P-value %10.6f\n", ChiDist.pvalue(chisq, df));
+		Phase.end(ev);
+		} // calcChisq
+
+   // return the sum of actual[a] to actual[b]
+
+   private long sumActual(int a, int b)
+	   {
+		int i;
+		long sum;
+		sum = 0;
+		for (i=a;i<=b;i++)
+		   {
+			sum = sum + actual[i];
+			} // for each class
+		return(sum);
+		} // sumActual
+
+   // return the sum of expected[a] to expected[b]
+
+   private double sumExpected(int a, int b)
+	   {
+		int i;
+		double sum;
+		sum = 0.0;
+		for (i=a;i<=b;i++)
+		   {
+			sum = sum + expected[i];
+			} // for each class
+		return(sum);
+		} // sumExpected
+
+	} // class TmplScan
@@ -0,0 +1,7 @@
+CC=javac
+
+TmplScan.class:					TmplScan.java
+			$(CC) TmplScan.java
+
+clean:
+			rm -f TmplScan.class
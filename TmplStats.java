@@ -0,0 +1,200 @@
+// TmplStats.java - JMX MBean of a running template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is an MBean with the live progress of a
+// template test, so that a long run can be watched with
+// JConsole, VisualVM, or the JMX monitoring of a fleet
+// of machines, before calcChisq() prints its table.
+// Template -j registers it as template:type=TmplStats.
+// It shows the samples taken, the samples per second,
+// the time to go, the head of the tally of matches, the
+// interim chi square with its p-value, and the seeds.
+// The sampling loop does not know about it.  The loop
+// already writes its sample count to a volatile field
+// at least every TmplEngine.clockSteps samples, for
+// RateEvent, and its tallies are plain longs.  With -p,
+// each worker adds to a LongAdder as often, and its own
+// tally is read the same way.  The JMX thread reads
+// the count, and a racy copy of the tallies, and works
+// out the rest, so the loop takes no lock and runs at
+// the same speed.  The copy may be a few samples apart
+// from one tally to the next, which does not matter to
+// an interim chi square.
+// The statistics are refreshed at most twice a second,
+// so that the attributes read together agree.
+//**********************************************************
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class TmplStats implements TmplStatsMXBean
+   {
+
+	// name of the MBean
+   public static final String name = "template:type=TmplStats";
+	// least nanoseconds between refreshes
+   private static final long minNanos = 500000000L;
+
+   private TmplEngine eng;       // test being watched
+   private int seed[];           // seeds of the run, or empty
+   private long tally[];         // copy of the tallies
+   private double chi[];         // chi square and df of the copy
+	// as of the last refresh
+   private boolean running;
+   private long n;               // #samples taken
+   private long t;               // clock
+   private double rate;          // samples per second
+   private int heads;            // #classes of the chi square
+
+	TmplStats(TmplEngine eng, int seed[])
+	   {
+		this.eng  = eng;
+		this.seed = new int[0];
+		if (seed != null)
+		   {
+			// parm[] of randomSeeds() is longer than the seeds
+			this.seed = Arrays.copyOf(seed, 3);
+			} // if seeds known
+		tally = new long[eng.tallies()];
+		chi   = new double[2];
+		t     = System.nanoTime() - minNanos;
+		} // constructor
+
+   // register an MBean for eng, started from seed[], or
+	// null if the seeds are not known
+	// return zero if registered
+	// return one  if not
+
+   public static int register(TmplEngine eng, int seed[])
+	   {
+		try
+		   {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(
+			   new TmplStats(eng, seed), new ObjectName(name));
+			} // try
+		catch (JMException e)
+		   {
+			return(1);
+			} // catch
+		return(0);
+		} // register
+
+   // Refresh the statistics, if the last refresh is old.
+	// The rate is over the time since the last refresh, or
+	// since the start of the sampling loop.
+
+   private synchronized void refresh()
+	   {
+		long now;
+		long cur;
+		boolean run;
+		now = System.nanoTime();
+		if (now - t < minNanos) return;
+		run = eng.sampling();
+		cur = eng.progress();
+		if (run && !running)
+		   {
+			// the first refresh of the loop is from its start
+			n = eng.firstSample();
+			t = eng.startTime();
+			} // if loop started
+		rate = 0.0;
+		if (run && now > t)
+		   {
+			rate = (cur - n) / ((now - t) * 1.0e-9);
+			} // if loop running
+		running = run;
+		n = cur;
+		t = now;
+		eng.snapshot(tally, chi);
+		heads = (int) chi[1] + 1;
+		} // refresh
+
+   public synchronized boolean isRunning()
+	   {
+		refresh();
+		return(running);
+		} // isRunning
+
+   public synchronized long getSamplesDone()
+	   {
+		refresh();
+		return(n);
+		} // getSamplesDone
+
+   public long getSamplesTotal()
+	   {
+		return(eng.samples());
+		} // getSamplesTotal
+
+   public synchronized double getSamplesPerSecond()
+	   {
+		refresh();
+		return(rate);
+		} // getSamplesPerSecond
+
+   public synchronized double getEtaSeconds()
+	   {
+		long total;
+		refresh();
+		total = eng.samples();
+		if (n >= total) return(0.0);
+		// to the end of an input file, or not started
+		if (total == Long.MAX_VALUE || !(rate > 0.0)) return(-1.0);
+		return((total - n) / rate);
+		} // getEtaSeconds
+
+   public synchronized long[] getHistogramHead()
+	   {
+		long head[];
+		refresh();
+		head = new long[Math.max(heads, 0)];
+		System.arraycopy(tally, 0, head, 0, head.length);
+		return(head);
+		} // getHistogramHead
+
+   public synchronized double getChiSquare()
+	   {
+		refresh();
+		return(chi[0]);
+		} // getChiSquare
+
+   public synchronized int getDegreesOfFreedom()
+	   {
+		refresh();
+		return((int) chi[1]);
+		} // getDegreesOfFreedom
+
+   public synchronized double getPValue()
+	   {
+		refresh();
+		return(ChiDist.pvalue(chi[0], (int) chi[1]));
+		} // getPValue
+
+   public int[] getSeed()
+	   {
+		return(seed.clone());
+		} // getSeed
+
+	} // class TmplStats
@@ -0,0 +1,7 @@
+CC=javac
+
+TmplStats.class:					TmplStats.java
+			$(CC) TmplStats.java
+
+clean:
+			rm -f TmplStats.class
@@ -0,0 +1,72 @@
+// TmplStatsMXBean.java - JMX view of a running template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This interface is the management interface of
+// TmplStats, the live progress and interim statistics of
+// a template test, for JConsole, VisualVM or any JMX
+// client.  Each getter is an attribute of the MBean
+// template:type=TmplStats.  See TmplStats.
+//**********************************************************
+
+public interface TmplStatsMXBean
+   {
+
+   // return true while the samples are being taken
+
+   public boolean isRunning();
+
+   // return the number of samples taken, and the number
+	// in the test
+
+   public long getSamplesDone();
+
+   public long getSamplesTotal();
+
+   // return the samples per second, since the last
+	// refresh of the statistics
+
+   public double getSamplesPerSecond();
+
+   // return the seconds until the last sample, or -1 if
+	// not known
+
+   public double getEtaSeconds();
+
+   // return the tallies of 0, 1, 2 ... matches, for the
+	// classes of the interim chi square
+
+   public long[] getHistogramHead();
+
+   // return the interim chi square, its degrees of
+	// freedom, and its p-value
+
+   public double getChiSquare();
+
+   public int getDegreesOfFreedom();
+
+   public double getPValue();
+
+   // return the three etaus seeds of the run, or no seeds
+	// if the run was resumed from a checkpoint
+
+   public int[] getSeed();
+
+	} // interface TmplStatsMXBean
@@ -0,0 +1,7 @@
+CC=javac
+
+TmplStatsMXBean.class:					TmplStatsMXBean.java
+			$(CC) TmplStatsMXBean.java
+
+clean:
+			rm -f TmplStatsMXBean.class
@@ -0,0 +1,183 @@
+// TmplTask.java - Fork/join worker for the template test  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class runs the sampling loop of the template test
+// on several cores at the same time.
+// The samples are split among a number of workers.
+// Each worker has its own source of bits, its own
+// sample queue, and its own tally of matches.
+// The source of each worker is made by SplitSrc.sub() on a
+// substream of one etaus stream, started with
+// Etaus.strtAt at its own index, so no two workers use
+// the same outputs.  For a file, the source of each
+// worker is a memory map of its own part of the file.
+// All workers share the same template and the same
+// automaton tables, which are not changed while sampling.
+// The task splits the range of workers in half until
+// one worker is left, and runs that worker.  The tallies
+// are added together into a new array as the halves are
+// joined.  The tally of a worker is written only by the
+// worker.
+// The elapsed time and the wrap-around status of each
+// worker are stored for the caller to report.
+// Every TmplEngine.clockSteps samples, a worker adds to
+// the shared count of samples, and its tally is in
+// hists[] from the start, so that the progress of the
+// run can be read while it runs.  See TmplStats.
+//**********************************************************
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TmplTask extends RecursiveTask<long[]>
+   {
+
+	// RecursiveTask is Serializable
+   private static final long serialVersionUID = 1L;
+
+   private BitRing proto;     // template shared by all workers
+   private TmplAuto auto;     // automaton tables shared by all workers
+   private SplitSrc src;      // source that the workers' sources copy
+   private int seed[];        // three seeds of the whole stream
+   private long bases[];      // substream start of each worker
+   private long counts[];     // #samples for each worker
+   private long nanos[];      // elapsed nanoseconds for each worker
+   private long done[];       // #samples taken by each worker
+   private int status[];      // wrap-around status of each worker
+   private LongAdder prog;    // #samples taken by all workers
+   private long hists[][];    // tally of each worker, as it runs
+   private int lo;            // first worker in this task
+   private int hi;            // one past the last worker in this task
+
+	TmplTask(BitRing proto, TmplAuto auto, SplitSrc src, int seed[],
+	   long bases[], long counts[], long nanos[], long done[],
+		int status[], LongAdder prog, long hists[][], int lo, int hi)
+	   {
+		this.proto  = proto;
+		this.auto   = auto;
+		this.src    = src;
+		this.seed   = seed;
+		this.bases  = bases;
+		this.counts = counts;
+		this.nanos  = nanos;
+		this.done   = done;
+		this.status = status;
+		this.prog   = prog;
+		this.hists  = hists;
+		this.lo     = lo;
+		this.hi     = hi;
+		} // constructor
+
+   // split the workers in half, or run one worker
+	// return the sum of the tallies of the workers
+
+   protected long[] compute()
+	   {
+		int i;
+		int mid;
+		long left[];
+		long rgt[];
+		long sum[];
+		TmplTask lft;
+		if (hi - lo == 1)
+		   {
+			return(runWorker(lo));
+			} // if one worker
+		mid = (lo + hi) >>> 1;
+		lft = new TmplTask(proto, auto, src, seed, bases, counts,
+		   nanos, done, status, prog, hists, lo, mid);
+		lft.fork();
+		rgt = new TmplTask(proto, auto, src, seed, bases, counts,
+		   nanos, done, status, prog, hists, mid, hi).compute();
+		left = lft.join();
+		// not into left[], which is in hists[] while the
+		// run is read
+		sum = new long[left.length];
+		for (i=0;i<left.length;i++)
+		   {
+			sum[i] = left[i] + rgt[i];
+			} // for each level of compare
+		return(sum);
+		} // compute
+
+   // fill a sample queue, then take the samples
+	// for one worker
+
+   private long[] runWorker(int w)
+	   {
+		int i;
+		int num;
+		int size;
+		long j;
+		long tick;          // sample # last published
+		long lim;           // sample # to publish next
+		long start;
+		long hist[];
+		BitSrc bs;
+		BitRing ring;
+		TmplAuto au;
+		size = proto.tmplCount();
+		hist = new long[size+1];
+		hists[w] = hist;
+		start = System.nanoTime();
+		bs = src.sub(seed, bases[w]);
+		ring = new BitRing(proto);
+		au   = new TmplAuto(auto, hist);
+		for (i=0;i<size;i++)
+		   {
+			num = bs.nextBit();  // generate a zero or a one
+			ring.pushActual(num);
+			au.step(num);        // start an alignment
+			} // for each bit in the sample queue
+		status[w] = 0;
+		tick = 0;
+		j    = 0;
+		while (j < counts[w] && status[w] == 0)
+		   {
+			prog.add(j - tick);
+			tick = j;
+			lim  = Math.min(counts[w], j + TmplEngine.clockSteps);
+			for (;j<lim;j++)
+			   {
+				ring.popActual();
+				num = bs.nextBit();
+				ring.pushActual(num);
+				if (au.step(num) != 0)
+				   {
+					System.out.print("match: ");
+					System.out.println("wrap-around error");
+					System.out.print("Worker " + w + " ");
+					System.out.print("Sample # ");
+					System.out.println(j + 1);
+					status[w] = 1;
+					j = j + 1;
+					break;
+					} // if wrap-around error
+				} // for each sample queue
+			} // for each block of clockSteps samples
+		au.trim(ring);
+		prog.add(j - tick);
+		done[w]  = j;
+		nanos[w] = System.nanoTime() - start;
+		return(hist);
+		} // runWorker
+
+   } // class TmplTask
@@ -0,0 +1,7 @@
+CC=javac
+
+TmplTask.class:					TmplTask.java
+			$(CC) TmplTask.java
+
+clean:
+			rm -f TmplTask.class
@@ -0,0 +1,154 @@
+// VecKernel.java - Template match with the Vector API  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// This class is the template match kernel with the Java
+// Vector API, jdk.incubator.vector.  Each step loads a
+// vector of words of the window, 256 or 512 bits, shifts
+// them into line with the template, XORs them with a
+// vector of template words, and tests all the lanes for
+// a mismatch at once.  Only the lane with the first
+// mismatch is taken out, and numberOfTrailingZeros finds
+// the bit.
+// The window may start at any bit, so each step loads
+// the words at wrd and at wrd + 1, and shifts them as
+// ScalarKernel.chunk() does, one lane for each word.
+// A vector must not run past the end of the ring, so
+// near the end of the ring and at the last partial vector
+// the step is 64 bits.
+// With uniform bits, most windows differ from the
+// template in the first few bits, so the first word is
+// always compared 64 bits at a time.  The vector steps
+// pay off on the long matches of a periodic source or a
+// large template.  A window of less than four vectors
+// is compared 64 bits at a time, since a ring that small
+// has room for only a vector or two before it wraps.
+// The module is incubating, so this class is compiled and
+// run with --add-modules jdk.incubator.vector.
+// BitRing.useKernel() loads it by name, and falls back
+// to ScalarKernel where the module is not there, or
+// usable() finds the vectors less than 256 bits.
+//**********************************************************
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VecKernel implements MatchKernel
+   {
+
+   private static final VectorSpecies<Long> species =
+	   LongVector.SPECIES_PREFERRED;
+	// #words in a vector
+   private static final int lanes = species.length();
+	// shortest window worth the vector steps
+   private static final int minLen = 4 * 64 * lanes;
+
+	VecKernel()
+	   {
+		} // constructor
+
+   // return true if the vectors are 256 bits or more,
+	// so that the kernel pays off here
+
+   public static boolean usable()
+	   {
+		return(species.vectorBitSize() >= 256);
+		} // usable
+
+   // return the number of bits in a vector
+
+   public static int vectorBits()
+	   {
+		return(species.vectorBitSize());
+		} // vectorBits
+
+   public int match(long buf[], int pos, long tmpl[], int len)
+	   {
+		int tally;     // number of continuous matches left to right
+		int cap;       // #bits in the ring
+		int wrd;       // word of the window in the ring
+		int shft;      // bit of the window in the word
+		int lane;      // lane of the first mismatch
+		long diff;     // XOR of 64 bits of window and template
+		LongVector lo;
+		LongVector hi;
+		LongVector x;
+		VectorMask<Long> ne;
+		if (len < minLen)
+		   {
+			return(ScalarKernel.matchFrom(buf, pos, tmpl, len, 0));
+			} // if short window
+		cap   = buf.length << 6;
+		shft  = pos & 63;
+		tally = 0;
+		while (tally < len)
+		   {
+			wrd = pos >>> 6;
+			if (tally == 0 || len - tally < lanes * 64
+			   || wrd + lanes >= buf.length)
+			   {
+				//*****************************************************
+				// 64 bits, at the first word, the last partial
+				// vector, or the end of the ring
+				//*****************************************************
+				diff = ScalarKernel.chunk(buf, pos) ^ tmpl[tally >>> 6];
+				if (len - tally < 64)
+				   {
+					diff |= -1L << (len - tally);
+					} // if last partial word
+				if (diff != 0L)
+				   {
+					return(tally + Long.numberOfTrailingZeros(diff));
+					} // if a mismatch in this word
+				tally = tally + 64;
+				pos   = pos + 64;
+				} // if one word
+			else
+			   {
+				//*****************************************************
+				// A vector of words
+				//*****************************************************
+				lo = LongVector.fromArray(species, buf, wrd);
+				hi = LongVector.fromArray(species, buf, wrd + 1);
+				x  = lo.lanewise(VectorOperators.LSHR, shft)
+				   .or(hi.lanewise(VectorOperators.LSHL, 1)
+					.lanewise(VectorOperators.LSHL, 63 - shft))
+					.lanewise(VectorOperators.XOR,
+					LongVector.fromArray(species, tmpl, tally >>> 6));
+				ne = x.compare(VectorOperators.NE, 0L);
+				if (ne.anyTrue())
+				   {
+					lane = ne.firstTrue();
+					return(tally + lane * 64
+					   + Long.numberOfTrailingZeros(x.lane(lane)));
+					} // if a mismatch in the vector
+				tally = tally + lanes * 64;
+				pos   = pos + lanes * 64;
+				} // else one vector
+			// the ring is whole words, so the shift stays
+			// the same when the window wraps around
+			if (pos >= cap) pos -= cap;
+			} // for each word or vector in the window
+		return(len);
+		} // match
+
+	} // class VecKernel
@@ -0,0 +1,10 @@
+CC=javac
+# The Vector API is an incubator module, and javac
+# warns that it is incubating.
+FLAGS=--add-modules jdk.incubator.vector
+
+VecKernel.class:					VecKernel.java
+			$(CC) $(FLAGS) VecKernel.java
+
+clean:
+			rm -f VecKernel.class
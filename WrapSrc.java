@@ -0,0 +1,82 @@
+// WrapSrc.java - Wrap-around bit source from etaus  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+
+//**********************************************************
+// This class is the source of bits for WrapTmpl.
+// The bits are uniform, from genbit(), but after a fixed
+// number of bits the etaus generator is started again
+// with the same seeds as before.  The bits repeat from
+// there, so the template is matched in full, and a
+// wrap-around error occurs.
+// This source cannot be split, because the repeat is
+// the point of the test.
+//**********************************************************
+
+import java.nio.ByteBuffer;
+
+public class WrapSrc implements SaveSrc
+   {
+
+   private Etaus et;        // etaus class instance
+   private int seed[];      // seeds to start again with
+   private long count;      // #bits generated
+   private long restart;    // #bits before etaus is started again
+
+	WrapSrc(Etaus et, int seed[], long restart)
+	   {
+		this.et      = et;
+		this.seed    = seed;
+		this.restart = restart;
+		count = 0;
+		} // constructor
+
+   public int nextBit()
+	   {
+		if (count == restart)
+		   {
+			// re-initialize etaus to same state as before
+			et.strt(seed);
+			} // if half way taking samples
+		count = count + 1;
+		return(et.genbit());
+		} // nextBit
+
+   // the state of the source is the state of etaus
+	// and the count of bits
+
+   public int saveSize()
+	   {
+		return(Etaus.saveSize + 8);
+		} // saveSize
+
+   public void save(ByteBuffer bb)
+	   {
+		et.save(bb);
+		bb.putLong(count);
+		} // save
+
+   public void load(ByteBuffer bb)
+	   {
+		et.load(bb);
+		count = bb.getLong();
+		} // load
+
+   } // class WrapSrc
@@ -0,0 +1,7 @@
+CC=javac
+
+WrapSrc.class:					WrapSrc.java
+			$(CC) WrapSrc.java
+
+clean:
+			rm -f WrapSrc.class
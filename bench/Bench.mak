@@ -0,0 +1,12 @@
+CC=javac
+# JMH is the directory that holds the JMH jar files:
+# jmh-core, jmh-generator-annprocess, jopt-simple
+# and commons-math3
+JMH=$(HOME)/jmh
+
+classes/META-INF/BenchmarkList:	*.java ../*.class
+			mkdir -p classes
+			$(CC) -cp "..:$(JMH)/*" -d classes *.java
+
+clean:
+			rm -rf classes
@@ -0,0 +1,240 @@
+// EtausBench.java - JMH benchmarks for etaus  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// JMH benchmarks for the primitives of the etaus random
+// number generator.
+// Each benchmark is one call of a generator method on
+// one instance of Etaus, seeded once per trial.
+// The bulk benchmarks fill an array of blk values per
+// call, and report operations per second per value, so
+// that they compare directly with the one value methods.
+// Run with -prof gc to see the allocation rate.
+// See bench.sh.
+//**********************************************************
+
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtausBench
+   {
+
+	// number of values filled by each bulk call
+   private static final int blk = 1024;
+
+   private static final MethodHandle STRT =
+	   Handles.virt("Etaus", "strt", void.class, int[].class);
+   private static final MethodHandle STRTAT =
+	   Handles.virt("Etaus", "strtAt", void.class, int[].class,
+		long.class);
+   private static final MethodHandle GEN =
+	   Handles.virt("Etaus", "gen", int.class);
+   private static final MethodHandle GENUNIF =
+	   Handles.virt("Etaus", "genunif", double.class);
+   private static final MethodHandle GENFRAC =
+	   Handles.virt("Etaus", "genfrac", double.class);
+   private static final MethodHandle GENDBL =
+	   Handles.virt("Etaus", "gendbl", double.class);
+   private static final MethodHandle GENINT =
+	   Handles.virt("Etaus", "genint", int.class, int.class);
+   private static final MethodHandle GENPWR =
+	   Handles.virt("Etaus", "genpwr", int.class, int.class);
+   private static final MethodHandle GENBIT =
+	   Handles.virt("Etaus", "genbit", int.class);
+   private static final MethodHandle GENHARV =
+	   Handles.virt("Etaus", "genharv", int.class);
+   private static final MethodHandle GENINTS =
+	   Handles.virt("Etaus", "genInts", void.class, int[].class,
+		int.class, int.class);
+   private static final MethodHandle GENLONGS =
+	   Handles.virt("Etaus", "genLongs", void.class, long[].class,
+		int.class, int.class);
+   private static final MethodHandle GENBYTES =
+	   Handles.virt("Etaus", "genBytes", void.class, ByteBuffer.class);
+   private static final MethodHandle GENBITS =
+	   Handles.virt("Etaus", "genBits", void.class, long[].class,
+		int.class);
+   private static final MethodHandle GENDBLS =
+	   Handles.virt("Etaus", "genDbls", void.class, double[].class,
+		int.class, int.class);
+
+   private int seed[] = new int[3];
+   private Object et;          // etaus instance under test
+   private int ints[];
+   private long longs[];
+   private long bits[];
+   private double dbls[];
+   private ByteBuffer bytes;
+
+	@Setup
+	public void setup() throws Throwable
+	   {
+		seed[0] = 123456789;
+		seed[1] = seed[0] + 17;
+		seed[2] = seed[0] + 31;
+		et = Handles.make("Etaus");
+		STRT.invokeExact(et, seed);
+		ints  = new int[blk];
+		longs = new long[blk];
+		bits  = new long[blk];
+		dbls  = new double[blk];
+		bytes = ByteBuffer.allocateDirect(blk * 4);
+		} // setup
+
+   //***********************************************************
+	// one value per call
+	//***********************************************************
+
+	@Benchmark
+	public int gen() throws Throwable
+	   {
+		return((int) GEN.invokeExact(et));
+		} // gen
+
+	@Benchmark
+	public double genunif() throws Throwable
+	   {
+		return((double) GENUNIF.invokeExact(et));
+		} // genunif
+
+	@Benchmark
+	public double genfrac() throws Throwable
+	   {
+		return((double) GENFRAC.invokeExact(et));
+		} // genfrac
+
+	@Benchmark
+	public double gendbl() throws Throwable
+	   {
+		return((double) GENDBL.invokeExact(et));
+		} // gendbl
+
+	@Benchmark
+	public int genint() throws Throwable
+	   {
+		return((int) GENINT.invokeExact(et, 1000));
+		} // genint
+
+	@Benchmark
+	public int genpwr() throws Throwable
+	   {
+		return((int) GENPWR.invokeExact(et, 4));
+		} // genpwr
+
+	@Benchmark
+	public int genbit() throws Throwable
+	   {
+		return((int) GENBIT.invokeExact(et));
+		} // genbit
+
+	@Benchmark
+	public int genharv() throws Throwable
+	   {
+		return((int) GENHARV.invokeExact(et));
+		} // genharv
+
+   //***********************************************************
+	// initialization
+	// strt fills the 16384 member state array.
+	// strtAt also jumps ahead 2^40 steps.
+	//***********************************************************
+
+	@Benchmark
+	public void strt() throws Throwable
+	   {
+		STRT.invokeExact(et, seed);
+		} // strt
+
+	@Benchmark
+	public void strtAt() throws Throwable
+	   {
+		STRTAT.invokeExact(et, seed, 1L << 40);
+		} // strtAt
+
+   //***********************************************************
+	// bulk methods, blk values per call
+	//***********************************************************
+
+	@Benchmark
+	@OperationsPerInvocation(blk)
+	public void genInts(Blackhole bh) throws Throwable
+	   {
+		GENINTS.invokeExact(et, ints, 0, blk);
+		bh.consume(ints);
+		} // genInts
+
+	@Benchmark
+	@OperationsPerInvocation(blk)
+	public void genLongs(Blackhole bh) throws Throwable
+	   {
+		GENLONGS.invokeExact(et, longs, 0, blk);
+		bh.consume(longs);
+		} // genLongs
+
+	@Benchmark
+	@OperationsPerInvocation(blk)
+	public void genBytes(Blackhole bh) throws Throwable
+	   {
+		bytes.clear();
+		GENBYTES.invokeExact(et, bytes);
+		bh.consume(bytes);
+		} // genBytes
+
+	// blk * 64 bits per call, counted as bits
+
+	@Benchmark
+	@OperationsPerInvocation(blk * 64)
+	public void genBits(Blackhole bh) throws Throwable
+	   {
+		GENBITS.invokeExact(et, bits, blk * 64);
+		bh.consume(bits);
+		} // genBits
+
+	@Benchmark
+	@OperationsPerInvocation(blk)
+	public void genDbls(Blackhole bh) throws Throwable
+	   {
+		GENDBLS.invokeExact(et, dbls, 0, blk);
+		bh.consume(dbls);
+		} // genDbls
+
+   } // class EtausBench
@@ -0,0 +1,128 @@
+// Handles.java - Method handles for the JMH benchmarks  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// The template test classes are in the default package.
+// JMH will not run a benchmark in the default package,
+// and a class in a named package cannot name a class in
+// the default package.  So the benchmarks find the
+// classes and methods they measure by name, once, and
+// keep them in static final method handles.
+// The JIT compiler treats a static final method handle
+// as a constant, and inlines the method it points to,
+// so calling through the handle costs the same as a
+// direct call.
+// Each handle takes the instance as an Object, so that
+// the benchmarks call it with invokeExact.
+//**********************************************************
+
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+public class Handles
+   {
+
+   // find a class in the default package by name
+
+   public static Class<?> cls(String name)
+	   {
+		try
+		   {
+			return(Class.forName(name));
+			} // try
+		catch (ClassNotFoundException e)
+		   {
+			throw new IllegalStateException("class " + name
+			   + " not found, run inst.sh first", e);
+			} // catch
+		} // cls
+
+   // create an instance with the given constructor parameters
+
+   public static Object make(String name, Class<?> ptypes[],
+	   Object args[])
+	   {
+		Constructor<?> ctor;
+		try
+		   {
+			ctor = cls(name).getDeclaredConstructor(ptypes);
+			ctor.setAccessible(true);
+			return(ctor.newInstance(args));
+			} // try
+		catch (ReflectiveOperationException e)
+		   {
+			throw new IllegalStateException("cannot create "
+			   + name, e);
+			} // catch
+		} // make
+
+   // create an instance with no constructor parameters
+
+   public static Object make(String name)
+	   {
+		return(make(name, new Class<?>[0], new Object[0]));
+		} // make
+
+   // find an instance method and adapt it to take the
+	// instance as an Object
+
+   public static MethodHandle virt(String name, String meth,
+	   Class<?> rtype, Class<?>... ptypes)
+	   {
+		Class<?> c;
+		MethodType mt;
+		MethodHandle mh;
+		c = cls(name);
+		try
+		   {
+			mh = MethodHandles.lookup().findVirtual(c, meth,
+			   MethodType.methodType(rtype, ptypes));
+			} // try
+		catch (ReflectiveOperationException e)
+		   {
+			throw new IllegalStateException("method " + name
+			   + "." + meth + " not found", e);
+			} // catch
+		mt = mh.type().changeParameterType(0, Object.class);
+		return(mh.asType(mt));
+		} // virt
+
+   // find a static method
+
+   public static MethodHandle stat(String name, String meth,
+	   Class<?> rtype, Class<?>... ptypes)
+	   {
+		try
+		   {
+			return(MethodHandles.lookup().findStatic(cls(name), meth,
+			   MethodType.methodType(rtype, ptypes)));
+			} // try
+		catch (ReflectiveOperationException e)
+		   {
+			throw new IllegalStateException("method " + name
+			   + "." + meth + " not found", e);
+			} // catch
+		} // stat
+
+   } // class Handles
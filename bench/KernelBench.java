@@ -0,0 +1,158 @@
+// KernelBench.java - JMH benchmarks for the match kernels  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// JMH benchmark of BitRing.match() with each kernel of
+// the match, ScalarKernel and VecKernel.  The result is
+// in nanoseconds per match.
+// The fork runs with --add-modules jdk.incubator.vector,
+// so that the vector kernel can load.  If it cannot, the
+// vector runs fail in setup rather than measure the
+// scalar kernel twice.
+//
+// The parameters are:
+// size   - #bits in the template and the sample queue
+// window - what the sample queue holds
+//          random - bits from etaus, so the match stops
+//                   in the first few bits, as in most
+//                   samples of Template
+//          full   - the template with its last bit
+//                   flipped, so the whole queue is
+//                   compared, as in WrapTmpl once per
+//                   period
+// kernel - scalar or vector
+//
+// The queue starts at bit 37 of the ring, so the window
+// is not on a word boundary and wraps around the ring.
+//**********************************************************
+
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules",
+   "jdk.incubator.vector"})
+public class KernelBench
+   {
+
+	// bit of the ring where the sample queue starts
+   private static final int ofst = 37;
+
+   private static final MethodHandle USEKERNEL =
+	   Handles.stat("BitRing", "useKernel", int.class, String.class);
+   private static final MethodHandle PUSHTMPL =
+	   Handles.virt("BitRing", "pushTemplate", void.class, int.class);
+   private static final MethodHandle PUSHACT =
+	   Handles.virt("BitRing", "pushActual", void.class, int.class);
+   private static final MethodHandle POPACT =
+	   Handles.virt("BitRing", "popActual", void.class);
+   private static final MethodHandle MATCH =
+	   Handles.virt("BitRing", "match", int.class);
+   private static final MethodHandle STRT =
+	   Handles.virt("Etaus", "strt", void.class, int[].class);
+   private static final MethodHandle GENBIT =
+	   Handles.virt("Etaus", "genbit", int.class);
+
+   @Param({"1024", "65536"})
+   public int size;
+
+   @Param({"random", "full"})
+   public String window;
+
+   @Param({"scalar", "vector"})
+   public String kernel;
+
+   private Object ring;       // BitRing with template and queue
+
+	@Setup
+	public void setup() throws Throwable
+	   {
+		int i;
+		int bit;
+		int tmpl[];
+		Object et;
+		int seed[] = new int[3];
+		if ((int) USEKERNEL.invokeExact(kernel) != 0)
+		   {
+			throw new IllegalStateException("no " + kernel
+			   + " kernel here");
+			} // if kernel cannot run
+		seed[0] = 123456789;
+		seed[1] = seed[0] + 17;
+		seed[2] = seed[0] + 31;
+		et = Handles.make("Etaus");
+		STRT.invokeExact(et, seed);
+		ring = Handles.make("BitRing", new Class<?>[] {int.class},
+		   new Object[] {size});
+		tmpl = new int[size];
+		for (i=0;i<size;i++)
+		   {
+			tmpl[i] = (int) GENBIT.invokeExact(et);
+			PUSHTMPL.invokeExact(ring, tmpl[i]);
+			} // for each template bit
+		//********************************************************
+		// Move the tail of the queue off a word boundary,
+		// then fill the queue
+		//********************************************************
+		for (i=0;i<ofst;i++)
+		   {
+			PUSHACT.invokeExact(ring, 0);
+			POPACT.invokeExact(ring);
+			} // for each bit to skip
+		for (i=0;i<size;i++)
+		   {
+			if (window.equals("full"))
+			   {
+				bit = tmpl[i];
+				if (i == size - 1) bit = bit ^ 1;
+				} // if whole template
+			else
+			   {
+				bit = (int) GENBIT.invokeExact(et);
+				} // else random
+			PUSHACT.invokeExact(ring, bit);
+			} // for each bit in the sample queue
+		} // setup
+
+	@Benchmark
+	public int match() throws Throwable
+	   {
+		return((int) MATCH.invokeExact(ring));
+		} // match
+
+   } // class KernelBench
@@ -0,0 +1,161 @@
+// LanesBench.java - JMH benchmarks for many etaus streams  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// JMH benchmarks of a sweep of many etaus streams, run
+// in the vector lanes of EtausLanes, or one Etaus after
+// the other with the bulk methods.
+// Each call fills tot values, tot / streams of each
+// stream, and the results are operations per second per
+// value, as in EtausBench.
+// The fork runs with --add-modules jdk.incubator.vector,
+// which EtausLanes needs.
+//
+// The parameter is:
+// streams - #streams in the sweep, a multiple of the
+//           lanes of a vector of 256 or 512 bits
+//**********************************************************
+
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules",
+   "jdk.incubator.vector"})
+public class LanesBench
+   {
+
+	// number of values filled by each call
+   private static final int tot = 1 << 20;
+
+   private static final MethodHandle STRT =
+	   Handles.virt("Etaus", "strt", void.class, int[].class);
+   private static final MethodHandle SET =
+	   Handles.virt("EtausLanes", "set", void.class, int.class,
+		Handles.cls("Etaus")).asType(MethodType.methodType(void.class,
+		Object.class, int.class, Object.class));
+   private static final MethodHandle LANESINTS =
+	   Handles.virt("EtausLanes", "genInts", void.class, int[].class,
+		int.class);
+   private static final MethodHandle LANESBITS =
+	   Handles.virt("EtausLanes", "genBits", void.class, long[].class,
+		int.class);
+   private static final MethodHandle GENINTS =
+	   Handles.virt("Etaus", "genInts", void.class, int[].class,
+		int.class, int.class);
+   private static final MethodHandle GENBITS =
+	   Handles.virt("Etaus", "genBits", void.class, long[].class,
+		int.class);
+
+   @Param({"16", "64", "256"})
+   public int streams;
+
+   private int steps;          // values of each stream per call
+   private Object lanes;       // EtausLanes with every stream
+   private Object et[];        // one Etaus for each stream
+   private int ints[];
+   private long bits[];
+   private long sbits[];       // bits of one stream
+
+	@Setup
+	public void setup() throws Throwable
+	   {
+		int k;
+		int seed[] = new int[3];
+		steps = tot / streams;
+		lanes = Handles.make("EtausLanes", new Class<?>[] {int.class},
+		   new Object[] {streams});
+		et = new Object[streams];
+		for (k=0;k<streams;k++)
+		   {
+			seed[0] = 123456789 + k;
+			seed[1] = seed[0] + 17;
+			seed[2] = seed[0] + 31;
+			et[k] = Handles.make("Etaus");
+			STRT.invokeExact(et[k], seed);
+			SET.invokeExact(lanes, k, et[k]);
+			} // for each stream
+		ints  = new int[tot];
+		bits  = new long[tot / 64];
+		sbits = new long[steps / 64];
+		} // setup
+
+	@Benchmark
+	@OperationsPerInvocation(tot)
+	public void lanesInts(Blackhole bh) throws Throwable
+	   {
+		LANESINTS.invokeExact(lanes, ints, steps);
+		bh.consume(ints);
+		} // lanesInts
+
+	@Benchmark
+	@OperationsPerInvocation(tot)
+	public void scalarInts(Blackhole bh) throws Throwable
+	   {
+		int k;
+		for (k=0;k<streams;k++)
+		   {
+			GENINTS.invokeExact(et[k], ints, k * steps, steps);
+			} // for each stream
+		bh.consume(ints);
+		} // scalarInts
+
+	@Benchmark
+	@OperationsPerInvocation(tot)
+	public void lanesBits(Blackhole bh) throws Throwable
+	   {
+		LANESBITS.invokeExact(lanes, bits, steps);
+		bh.consume(bits);
+		} // lanesBits
+
+	@Benchmark
+	@OperationsPerInvocation(tot)
+	public void scalarBits(Blackhole bh) throws Throwable
+	   {
+		int k;
+		for (k=0;k<streams;k++)
+		   {
+			GENBITS.invokeExact(et[k], sbits, steps);
+			bh.consume(sbits);
+			} // for each stream
+		} // scalarBits
+
+   } // class LanesBench
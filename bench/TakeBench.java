@@ -0,0 +1,120 @@
+// TakeBench.java - JMH benchmark for TmplEngine.takeSamples  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// JMH benchmark for TmplEngine.takeSamples() end to end,
+// with the uniform source of Template, EtausSrc.
+// Each operation is one call of takeSamples(), which
+// takes one million samples, with a template of size
+// bits.  The result is reported in nanoseconds per sample.
+// Run with -prof gc, and gc.alloc.rate.norm is the number
+// of bytes allocated per sample.
+// The engine goes on from the samples it has taken, so
+// each call gets a new engine, with a new template and
+// sample queue, built before the call is measured.
+// Each call continues the etaus stream of the call before
+// it, so the tally of matches is not meant to be checked.
+//**********************************************************
+
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TakeBench
+   {
+
+	// #samples in one call of takeSamples
+   private static final int samples = 1000000;
+
+   private static final MethodHandle STRT =
+	   Handles.virt("Etaus", "strt", void.class, int[].class);
+   private static final MethodHandle BLDTMPL =
+	   Handles.virt("TmplEngine", "bldTemplate", int.class,
+		Handles.cls("BitSrc"));
+   private static final MethodHandle BLDACT =
+	   Handles.virt("TmplEngine", "bldActual", int.class,
+		Handles.cls("BitSrc"));
+   private static final MethodHandle TAKESAMPLES =
+	   Handles.virt("TmplEngine", "takeSamples", int.class,
+		Handles.cls("BitSrc")).asType(MethodType.methodType(int.class,
+		Object.class, Object.class));
+
+   @Param({"64", "1024", "65536"})
+   public int size;
+
+   private Object tmpl;       // template test engine
+   private Object src;        // uniform source of bits
+
+	@Setup(Level.Trial)
+	public void setup() throws Throwable
+	   {
+		Object et;
+		int seed[] = new int[3];
+		seed[0] = 123456789;
+		seed[1] = seed[0] + 17;
+		seed[2] = seed[0] + 31;
+		et = Handles.make("Etaus");
+		STRT.invokeExact(et, seed);
+		src = Handles.make("EtausSrc",
+		   new Class<?>[] {Handles.cls("Etaus")}, new Object[] {et});
+		} // setup
+
+	// a new engine for each call
+
+	@Setup(Level.Invocation)
+	public void engine() throws Throwable
+	   {
+		tmpl = Handles.make("TmplEngine",
+		   new Class<?>[] {int.class, long.class, double.class},
+			new Object[] {size, (long) samples, 0.5});
+		BLDTMPL.invoke(tmpl, src);
+		BLDACT.invoke(tmpl, src);
+		} // engine
+
+	@Benchmark
+	@OperationsPerInvocation(samples)
+	public int takeSamples() throws Throwable
+	   {
+		return((int) TAKESAMPLES.invokeExact(tmpl, src));
+		} // takeSamples
+
+   } // class TakeBench
@@ -0,0 +1,259 @@
+// TmplBench.java - JMH benchmarks for the template match  Version 0.1.0
+// Copyright (C) 2021 aquila57 at github.com
+
+// This program is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as
+// published by the Free Software Foundation; either version 2 of
+// the License, or (at your option) any later version.
+
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+// GNU General Public License for more details.
+
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to:
+
+   // Free Software Foundation, Inc.
+   // 59 Temple Place - Suite 330
+   // Boston, MA 02111-1307, USA.
+
+//**********************************************************
+// JMH benchmarks for the sampling loop of the template
+// test.  The results are in nanoseconds per sample.
+// Run with -prof gc, and gc.alloc.rate.norm is the number
+// of bytes allocated per sample.
+//
+// The parameters are:
+// size   - #bits in the template and the sample queue
+// source - where the sample bits come from
+//          uniform  - Etaus.genbit(), as in Template
+//          sine     - sin(genunif() * Pi/2) >= 0.5,
+//                     as in SinTempl
+//          periodic - the template repeated, with its last
+//                     bit flipped, as in WrapTmpl after
+//                     the generator is started again.
+//                     Once per period a sample queue
+//                     matches size-1 bits.  This is the
+//                     near failure case.
+// engine - how each sample queue is matched
+//          direct   - popActual, pushActual, then
+//                     BitRing.match(), which compares the
+//                     queue from its least recent bit
+//          auto     - popActual, pushActual, then
+//                     TmplAuto.step(), the incremental
+//                     automaton
+//
+// sample   measures the queue and the match only.  The
+//          bits are generated before the measurement.
+// run      also generates each bit while sampling.
+// See TakeBench for TmplEngine.takeSamples() end to end.
+//**********************************************************
+
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TmplBench
+   {
+
+	// number of samples in each call of sample and run
+   private static final int blk = 4096;
+	// #bits of source generated before the measurement
+   private static final int srcbits = 1 << 20;
+
+   private static final MethodHandle PUSHTMPL =
+	   Handles.virt("BitRing", "pushTemplate", void.class, int.class);
+   private static final MethodHandle PUSHACT =
+	   Handles.virt("BitRing", "pushActual", void.class, int.class);
+   private static final MethodHandle POPACT =
+	   Handles.virt("BitRing", "popActual", void.class);
+   private static final MethodHandle MATCH =
+	   Handles.virt("BitRing", "match", int.class);
+   private static final MethodHandle STEP =
+	   Handles.virt("TmplAuto", "step", int.class, int.class);
+   private static final MethodHandle STRT =
+	   Handles.virt("Etaus", "strt", void.class, int[].class);
+   private static final MethodHandle GENBIT =
+	   Handles.virt("Etaus", "genbit", int.class);
+   private static final MethodHandle GENUNIF =
+	   Handles.virt("Etaus", "genunif", double.class);
+
+   @Param({"64", "1024", "65536"})
+   public int size;
+
+   @Param({"uniform", "sine", "periodic"})
+   public String source;
+
+   @Param({"direct", "auto"})
+   public String engine;
+
+   private Object et;         // etaus instance
+   private Object ring;       // BitRing with template and queue
+   private Object auto;       // TmplAuto built from the template
+   private boolean useAuto;   // engine is auto
+   private int kind;          // 0 uniform, 1 sine, 2 periodic
+   private long src[];        // source bits, packed
+   private int srclen;        // #bits in src
+   private int pos;           // next bit of src
+   private long hist[];       // tally of matches
+   private double halfpi = Math.PI * 0.5;
+
+	@Setup
+	public void setup() throws Throwable
+	   {
+		int i;
+		int bit;
+		int full;
+		int tmpl[];
+		int seed[] = new int[3];
+		seed[0] = 123456789;
+		seed[1] = seed[0] + 17;
+		seed[2] = seed[0] + 31;
+		et = Handles.make("Etaus");
+		STRT.invokeExact(et, seed);
+		ring = Handles.make("BitRing", new Class<?>[] {int.class},
+		   new Object[] {size});
+		tmpl = new int[size];
+		for (i=0;i<size;i++)
+		   {
+			tmpl[i] = (int) GENBIT.invokeExact(et);
+			PUSHTMPL.invokeExact(ring, tmpl[i]);
+			} // for each template bit
+		hist = new long[size+1];
+		auto = Handles.make("TmplAuto",
+		   new Class<?>[] {Handles.cls("BitRing"), long[].class},
+		   new Object[] {ring, hist});
+		useAuto = engine.equals("auto");
+		kind = source.equals("uniform") ? 0
+		   : source.equals("sine") ? 1 : 2;
+		//********************************************************
+		// Generate the source bits.  The periodic source
+		// is a whole number of periods, so the period is
+		// kept when pos wraps around.
+		//********************************************************
+		srclen = srcbits;
+		if (kind == 2)
+		   {
+			srclen = ((srcbits + size - 1) / size) * size;
+			} // if periodic
+		src = new long[(srclen + 63) >>> 6];
+		for (i=0;i<srclen;i++)
+		   {
+			if (kind == 2)
+			   {
+				bit = tmpl[i % size];
+				if (i % size == size - 1) bit = bit ^ 1;
+				} // if periodic
+			else
+			   {
+				bit = srcBit();
+				} // else from etaus
+			src[i >>> 6] |= (long) bit << (i & 63);
+			} // for each source bit
+		//********************************************************
+		// Fill the sample queue
+		//********************************************************
+		pos = 0;
+		for (i=0;i<size;i++)
+		   {
+			bit = nextSrc();
+			PUSHACT.invokeExact(ring, bit);
+			if (useAuto)
+			   {
+				full = (int) STEP.invokeExact(auto, bit);
+				} // if automaton
+			} // for each bit in the sample queue
+		} // setup
+
+   // next bit of the uniform or the sine source
+
+   private int srcBit() throws Throwable
+	   {
+		double y;
+		if (kind == 0)
+		   {
+			return((int) GENBIT.invokeExact(et));
+			} // if uniform
+		y = Math.sin((double) GENUNIF.invokeExact(et) * halfpi);
+		return(y >= 0.5 ? 1 : 0);
+		} // srcBit
+
+   // next bit generated before the measurement
+
+   private int nextSrc()
+	   {
+		int bit;
+		bit = (int) (src[pos >>> 6] >>> (pos & 63)) & 1;
+		pos = pos + 1;
+		if (pos == srclen) pos = 0;
+		return(bit);
+		} // nextSrc
+
+   // one sample: pop, push and match
+	// return the number of matches, or for the automaton,
+	// whether the whole template matched
+
+   private int oneSample(int bit) throws Throwable
+	   {
+		int cnt;
+		POPACT.invokeExact(ring);
+		PUSHACT.invokeExact(ring, bit);
+		if (useAuto)
+		   {
+			return((int) STEP.invokeExact(auto, bit));
+			} // if automaton
+		cnt = (int) MATCH.invokeExact(ring);
+		hist[cnt]++;
+		return(cnt);
+		} // oneSample
+
+	@Benchmark
+	@OperationsPerInvocation(blk)
+	public int sample() throws Throwable
+	   {
+		int i;
+		int sum;
+		sum = 0;
+		for (i=0;i<blk;i++)
+		   {
+			sum += oneSample(nextSrc());
+			} // for each sample
+		return(sum);
+		} // sample
+
+	@Benchmark
+	@OperationsPerInvocation(blk)
+	public int run() throws Throwable
+	   {
+		int i;
+		int sum;
+		sum = 0;
+		for (i=0;i<blk;i++)
+		   {
+			sum += oneSample(kind == 2 ? nextSrc() : srcBit());
+			} // for each sample
+		return(sum);
+		} // run
+
+   } // class TmplBench
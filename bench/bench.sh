@@ -0,0 +1,9 @@
+#!/bin/bash
+# Run the JMH benchmarks from the bench directory.
+# Build the template test with inst.sh first.
+# JMH is the directory that holds the JMH jar files.
+# Parameters are passed to JMH, for example
+# bench.sh EtausBench -prof gc
+JMH=${JMH:-$HOME/jmh}
+make -f Bench.mak JMH="$JMH" || exit 1
+java -cp "classes:..:$JMH/*" org.openjdk.jmh.Main "$@"
@@ -1,5 +1,37 @@
 #!/bin/bash
+make -f PhaseEvent.mak clean
+make -f RateEvent.mak clean
+make -f Phase.mak clean
 make -f Etaus.mak clean
+make -f EtausLanes.mak clean
+make -f MatchKernel.mak clean
+make -f ScalarKernel.mak clean
+make -f VecKernel.mak clean
+make -f BitRing.mak clean
+make -f TmplAuto.mak clean
+make -f BitSrc.mak clean
+make -f SplitSrc.mak clean
+make -f SaveSrc.mak clean
+make -f EtausSrc.mak clean
+make -f HarvSrc.mak clean
+make -f SinSrc.mak clean
+make -f WrapSrc.mak clean
+make -f StreamSrc.mak clean
+make -f MappedSrc.mak clean
+make -f TmplTask.mak clean
+make -f Ckpt.mak clean
+make -f ChiDist.mak clean
+make -f ChiRpt.mak clean
+make -f SeqTest.mak clean
+make -f TmplBank.mak clean
+make -f TmplScan.mak clean
+make -f FpTable.mak clean
+make -f TmplEngine.mak clean
+make -f TmplStatsMXBean.mak clean
+make -f TmplStats.mak clean
 make -f Template.mak clean
 make -f WrapTmpl.mak clean
 make -f SinTempl.mak clean
+make -f EtausCycle.mak clean
+make -f RepeatScan.mak clean
+make -f ParCheck.mak clean
@@ -1,5 +1,37 @@
 #!/bin/bash
+make -f PhaseEvent.mak
+make -f RateEvent.mak
+make -f Phase.mak
 make -f Etaus.mak
+make -f EtausLanes.mak
+make -f MatchKernel.mak
+make -f ScalarKernel.mak
+make -f VecKernel.mak
+make -f BitRing.mak
+make -f TmplAuto.mak
+make -f BitSrc.mak
+make -f SplitSrc.mak
+make -f SaveSrc.mak
+make -f EtausSrc.mak
+make -f HarvSrc.mak
+make -f SinSrc.mak
+make -f WrapSrc.mak
+make -f StreamSrc.mak
+make -f MappedSrc.mak
+make -f TmplTask.mak
+make -f Ckpt.mak
+make -f ChiDist.mak
+make -f ChiRpt.mak
+make -f SeqTest.mak
+make -f TmplBank.mak
+make -f TmplScan.mak
+make -f FpTable.mak
+make -f TmplEngine.mak
+make -f TmplStatsMXBean.mak
+make -f TmplStats.mak
 make -f Template.mak
 make -f WrapTmpl.mak
 make -f SinTempl.mak
+make -f EtausCycle.mak
+make -f RepeatScan.mak
+make -f ParCheck.mak